@@ -0,0 +1,98 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+import chess.engine.BatchAnalyzer;
+import chess.engine.Search;
+
+/**
+ * Entry point that scores a file of FEN positions with {@link BatchAnalyzer},
+ * e.g.
+ *
+ * <pre>
+ * java application.AnalysisProgram positions.fen results.tsv --depth 6 --threads 8
+ * </pre>
+ *
+ * Running it again after an interruption resumes from the last checkpoint.
+ */
+public class AnalysisProgram {
+
+    /**
+     * Main method that runs the analysis.
+     *
+     * @param args The input and output files, then the options --depth,
+     *             --nodes, --threads, --hash (megabytes per thread) and
+     *             --capacity.
+     * @throws IOException          If a file cannot be read or written.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: AnalysisProgram <input> <output> [--depth N] [--nodes N] [--threads N]"
+                    + " [--hash MB] [--capacity N]");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        int depth = 0;
+        long nodes = Long.MAX_VALUE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hash = 16;
+        int capacity = BatchAnalyzer.DEFAULT_CAPACITY;
+
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--depth":
+                depth = Integer.parseInt(value);
+                break;
+            case "--nodes":
+                nodes = Long.parseLong(value);
+                break;
+            case "--threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "--hash":
+                hash = Integer.parseInt(value);
+                break;
+            case "--capacity":
+                capacity = Integer.parseInt(value);
+                break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+        if (depth == 0) {
+            depth = nodes == Long.MAX_VALUE ? 4 : Search.MAX_DEPTH;
+        }
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(threads, depth, nodes, hash);
+        analyzer.setCapacity(capacity);
+        long start = System.nanoTime();
+        analyzer.setProgress(written -> System.out.printf("%d positions, %.1f/s%n", written,
+                written * 1e9 / (System.nanoTime() - start)));
+
+        // On Ctrl-C, stop and let the run write its checkpoint before exiting
+        CountDownLatch done = new CountDownLatch(1);
+        Thread hook = new Thread(() -> {
+            analyzer.stop();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(hook);
+        try {
+            long written = analyzer.run(input, output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Done: %d positions in %.1f s, %.1f/s%n", written, seconds, written / seconds);
+        } finally {
+            done.countDown();
+        }
+    }
+}
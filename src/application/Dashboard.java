@@ -0,0 +1,213 @@
+package application;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import chess.CompactMatch;
+import chess.Color;
+import server.GameServer;
+import server.HostedMatch;
+import server.MatchRegistry;
+
+/**
+ * Console dashboard for operators that tiles the boards of the matches hosted
+ * by a {@link GameServer} into one frame, refreshed on a fixed tick.
+ *
+ * Each tile is drawn from a {@link HostedMatch#snapshot() snapshot} taken by
+ * the match actor, so rendering never touches a live match; a snapshot that
+ * is not ready yet is simply drawn on a later tick. Only as many matches as fit
+ * on the screen are snapshotted and drawn, so the cost of a frame does not
+ * grow with the number of hosted matches.
+ */
+public class Dashboard {
+
+    public static final long DEFAULT_TICK_MILLIS = 500;
+
+    private static final int TILE_WIDTH = 20;
+    private static final int TILE_HEIGHT = 12;
+    private static final int HEADER_ROWS = 2;
+
+    /**
+     * What the dashboard knows about a visible match between ticks.
+     */
+    private static final class Tile {
+        final HostedMatch match;
+        volatile CompactMatch snapshot;
+        CompletableFuture<CompactMatch> pending;
+        int lastMoves;
+        long lastTime;
+        double movesPerSecond;
+
+        Tile(HostedMatch match, long now) {
+            this.match = match;
+            this.lastMoves = match.getMoves();
+            this.lastTime = now;
+        }
+    }
+
+    private final MatchRegistry registry;
+    private final TerminalRenderer screen;
+    private final int capacity;
+    private final Map<Long, Tile> tiles = new LinkedHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructs a dashboard.
+     *
+     * @param registry The matches to monitor.
+     * @param out      The stream of the terminal.
+     * @param width    The number of terminal columns.
+     * @param height   The number of terminal rows.
+     */
+    public Dashboard(MatchRegistry registry, PrintStream out, int width, int height) {
+        this.registry = registry;
+        this.screen = new TerminalRenderer(out, width, height);
+        this.capacity = Math.max(1, width / TILE_WIDTH) * Math.max(1, (height - HEADER_ROWS - 1) / TILE_HEIGHT);
+    }
+
+    /**
+     * Retrieves the number of matches shown at once.
+     *
+     * @return The number of tiles.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Starts refreshing the dashboard on a background thread.
+     *
+     * @param tickMillis The time between frames.
+     */
+    public synchronized void start(long tickMillis) {
+        if (ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "dashboard");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::tick, 0, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops refreshing the dashboard.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdown();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Draws one frame: updates the set of visible matches, asks each of them
+     * for a new snapshot and draws the latest snapshots that arrived. A frame
+     * that fails is reported and skipped, since an exception escaping to the
+     * scheduler would cancel every later tick.
+     */
+    public void tick() {
+        try {
+            drawFrame();
+        } catch (RuntimeException e) {
+            System.err.println("Dashboard frame failed: " + e);
+        }
+    }
+
+    private void drawFrame() {
+        long now = System.currentTimeMillis();
+        updateTiles(now);
+
+        screen.clear();
+        screen.drawText(0, 0, String.format(Locale.ROOT, "Matches: %d  shown: %d  %tT", registry.size(),
+                tiles.size(), now));
+        int columns = Math.max(1, screen.getWidth() / TILE_WIDTH);
+        int index = 0;
+        for (Map.Entry<Long, Tile> entry : tiles.entrySet()) {
+            Tile tile = entry.getValue();
+            int top = HEADER_ROWS + (index / columns) * TILE_HEIGHT;
+            int left = (index % columns) * TILE_WIDTH;
+            drawTile(top, left, entry.getKey(), tile, now);
+            index++;
+        }
+        screen.present(null);
+    }
+
+    private void updateTiles(long now) {
+        for (Iterator<Map.Entry<Long, Tile>> it = tiles.entrySet().iterator(); it.hasNext();) {
+            if (registry.get(it.next().getKey()) == null) {
+                it.remove();
+            }
+        }
+        if (tiles.size() < capacity) {
+            for (HostedMatch match : registry.matches()) {
+                if (tiles.size() >= capacity) {
+                    break;
+                }
+                tiles.computeIfAbsent(match.getId(), id -> new Tile(match, now));
+            }
+        }
+        for (Tile tile : tiles.values()) {
+            // One snapshot request in flight per match, so a busy match cannot pile them up
+            if (tile.pending == null || tile.pending.isDone()) {
+                tile.pending = tile.match.snapshot();
+                tile.pending.thenAccept(s -> tile.snapshot = s);
+            }
+        }
+    }
+
+    private void drawTile(int top, int left, long id, Tile tile, long now) {
+        if (now - tile.lastTime >= 1000) {
+            int moves = tile.match.getMoves();
+            double rate = (moves - tile.lastMoves) * 1000.0 / (now - tile.lastTime);
+            tile.movesPerSecond = tile.movesPerSecond == 0 ? rate : 0.5 * tile.movesPerSecond + 0.5 * rate;
+            tile.lastMoves = moves;
+            tile.lastTime = now;
+        }
+        screen.drawText(top, left, String.format(Locale.ROOT, "#%d %.1f mv/s", id, tile.movesPerSecond));
+
+        CompactMatch snapshot = tile.snapshot;
+        if (snapshot == null) {
+            screen.drawText(top + 1, left, "...");
+            return;
+        }
+        screen.drawBoard(top + 1, left, snapshot.toBoard());
+        String state;
+        if (snapshot.getCheckMate()) {
+            state = "MATE " + (snapshot.getCurrentPlayer() == Color.WHITE ? "1-0" : "0-1");
+        } else {
+            state = snapshot.getCurrentPlayer() + (snapshot.getCheck() ? " CHECK" : "");
+        }
+        screen.drawText(top + 10, left, "T" + snapshot.getTurn() + " " + state);
+    }
+
+    /**
+     * Main method that starts a game server and monitors its matches.
+     *
+     * @param args An optional port number, terminal width, terminal height and
+     *             log directory.
+     * @throws IOException If the port cannot be bound or the log cannot be
+     *                     opened.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : TerminalRenderer.DEFAULT_WIDTH;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : TerminalRenderer.DEFAULT_HEIGHT;
+        GameServer server = new GameServer();
+        if (args.length > 3) {
+            server.enableLog(Paths.get(args[3]));
+        }
+        server.start(port);
+        // The HTTP server threads keep the JVM running
+        new Dashboard(server.getRegistry(), System.out, width, height).start(DEFAULT_TICK_MILLIS);
+    }
+}
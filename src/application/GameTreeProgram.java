@@ -0,0 +1,72 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessMatch;
+import chess.engine.GameTreeExporter;
+
+/**
+ * Entry point that exports all legal move sequences up to a depth as a graph
+ * of distinct positions with {@link GameTreeExporter}, e.g.
+ *
+ * <pre>
+ * java application.GameTreeProgram tree.dag --depth 5 --threads 8
+ * java application.GameTreeProgram tree.dag.gz --depth 4 --fen "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"
+ * </pre>
+ */
+public class GameTreeProgram {
+
+    /**
+     * Main method that runs the export.
+     *
+     * @param args The output file (gzip compressed if it ends in ".gz"), then
+     *             the options --depth, --fen, --threads and --chunk (positions
+     *             expanded at once).
+     * @throws IOException          If a file cannot be written.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: GameTreeProgram <output> [--depth N] [--fen FEN] [--threads N] [--chunk N]");
+            return;
+        }
+        Path output = Paths.get(args[0]);
+        int depth = 4;
+        String fen = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunk = GameTreeExporter.DEFAULT_CHUNK_SIZE;
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--depth":
+                depth = Integer.parseInt(value);
+                break;
+            case "--fen":
+                fen = value;
+                break;
+            case "--threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "--chunk":
+                chunk = Integer.parseInt(value);
+                break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+
+        GameTreeExporter exporter = new GameTreeExporter(threads);
+        exporter.setChunkSize(chunk);
+        long start = System.nanoTime();
+        GameTreeExporter.Result result = exporter.export(fen == null ? new ChessMatch() : new ChessMatch(fen), depth,
+                output);
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("%d nodes, %d edges (%d tree nodes), %d bytes in %d ms%n", result.getNodes(),
+                result.getEdges(), result.getTreeNodes(), Files.size(output), millis);
+    }
+}
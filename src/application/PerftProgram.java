@@ -0,0 +1,88 @@
+package application;
+
+import java.util.Locale;
+
+import chess.Chess960;
+import chess.ChessMatch;
+import chess.engine.Perft;
+import chess.variant.Variant;
+import chess.variant.VariantPosition;
+
+/**
+ * Entry point that runs perft, the count of legal move sequences to a fixed
+ * depth, on one position, on all 960 Chess960 start positions or on a larger
+ * board variant, e.g.
+ *
+ * <pre>
+ * java application.PerftProgram --depth 4 --chess960 all
+ * java application.PerftProgram --depth 5 --fen "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"
+ * java application.PerftProgram --depth 4 --variant capablanca
+ * </pre>
+ */
+public class PerftProgram {
+
+    /**
+     * Main method that runs perft.
+     *
+     * @param args The options --depth, --fen, --chess960 (a start position
+     *             number, or "all") and --variant (standard, capablanca or
+     *             capablanca10x10, from its start position or --fen).
+     */
+    public static void main(String[] args) {
+        int depth = 4;
+        String fen = null;
+        int first = -1;
+        int last = -1;
+        Variant variant = null;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--depth":
+                depth = Integer.parseInt(value);
+                break;
+            case "--fen":
+                fen = value;
+                break;
+            case "--variant":
+                variant = Variant.forName(value);
+                break;
+            case "--chess960":
+                if (value.equals("all")) {
+                    first = 0;
+                    last = Chess960.POSITIONS - 1;
+                } else {
+                    first = last = Integer.parseInt(value);
+                }
+                break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+
+        long total = 0;
+        long start = System.nanoTime();
+        if (variant != null) {
+            VariantPosition position = new VariantPosition(variant, fen == null ? variant.startFen() : fen);
+            total = Perft.perft(position, depth);
+            System.out.println(position.toFen() + "\t" + total);
+        } else if (first < 0) {
+            ChessMatch match = fen == null ? new ChessMatch() : new ChessMatch(fen);
+            total = Perft.perft(match, depth);
+            System.out.println(match.toFen() + "\t" + total);
+        } else {
+            ChessMatch match = new ChessMatch();
+            for (int index = first; index <= last; index++) {
+                String startFen = Chess960.startFen(index);
+                match.load(startFen);
+                long nodes = Perft.perft(match, depth);
+                total += nodes;
+                System.out.println(index + "\t" + startFen + "\t" + nodes);
+            }
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(String.format(Locale.ROOT, "Total %d nodes in %d ms, %.0f nodes/s", total, millis,
+                total * 1000.0 / millis));
+    }
+}
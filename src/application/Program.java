@@ -24,23 +24,21 @@ public class Program {
         Scanner scan = new Scanner(System.in);
         ChessMatch cm = new ChessMatch(); // Creates a new chess match instance.
         List<ChessPiece> captured = new ArrayList<ChessPiece>(); // List to hold captured chess pieces.
+        TerminalRenderer screen = new TerminalRenderer(System.out); // Redraws only what changed between frames.
 
         // Main game loop that continues until checkmate condition is met.
         while (!cm.getCheckMate()) {
             try {
-                UI.clearScreen(); // Clears the console screen.
-                UI.printMatch(cm, captured); // Prints current state of the chess match.
-                System.out.println();
-                System.out.print("Source: ");
+                screen.clear();
+                screen.drawMatch(cm, captured); // Draws current state of the chess match.
+                screen.present("Source: ");
                 ChessPosition source = UI.readChessPosition(scan); // Reads source position from user input.
 
                 // Calculates possible moves for the selected piece.
                 boolean[][] possibleMoves = cm.possibleMoves(source);
-                UI.clearScreen(); // Clears the console screen.
-                UI.printBoard(cm.getPieces(), possibleMoves); // Prints the chess board with possible moves highlighted.
-
-                System.out.println();
-                System.out.print("Target: ");
+                screen.clear();
+                screen.drawBoard(0, 0, cm.getPieces(), possibleMoves); // Draws the board with possible moves highlighted.
+                screen.present("Target: ");
                 ChessPosition target = UI.readChessPosition(scan); // Reads target position from user input.
 
                 // Performs the chess move and captures any piece if applicable.
@@ -73,7 +71,9 @@ public class Program {
             }
         }
 
-        UI.clearScreen(); // Clears the console screen.
-        UI.printMatch(cm, captured); // Prints final state of the chess match.
+        screen.clear();
+        screen.drawMatch(cm, captured); // Draws final state of the chess match.
+        screen.present(null);
+        System.out.println();
     }
 }
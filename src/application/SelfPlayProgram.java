@@ -0,0 +1,97 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.Chess960;
+import chess.engine.EngineConfig;
+import chess.engine.Tournament;
+import chess.engine.TournamentResult;
+
+/**
+ * Entry point that plays a self-play tournament between two engine
+ * configurations and reports the Elo difference, the SPRT status and the
+ * throughput, e.g.
+ *
+ * <pre>
+ * java application.SelfPlayProgram --first name=new,depth=5 --second name=old,depth=4 \
+ *     --games 200 --concurrency 4 --openings openings.epd --sprt 0,5
+ * </pre>
+ *
+ * With --chess960 the openings are Chess960 start positions, spread evenly
+ * over the 960.
+ */
+public class SelfPlayProgram {
+
+    /**
+     * Main method that runs the tournament.
+     *
+     * @param args The options: --first, --second, --games, --concurrency,
+     *             --openings (a file with one FEN per line), --chess960 (a
+     *             number of start positions, or "all"), --sprt elo0,elo1 and
+     *             --maxplies.
+     * @throws IOException If the openings file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        EngineConfig first = EngineConfig.parse("name=first");
+        EngineConfig second = EngineConfig.parse("name=second");
+        int games = 100;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        List<String> openings = new ArrayList<>();
+        double[] sprt = { 0, 5 };
+        int maxPlies = 0;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "--first":
+                first = EngineConfig.parse(value);
+                break;
+            case "--second":
+                second = EngineConfig.parse(value);
+                break;
+            case "--games":
+                games = Integer.parseInt(value);
+                break;
+            case "--concurrency":
+                concurrency = Integer.parseInt(value);
+                break;
+            case "--openings":
+                for (String line : Files.readAllLines(Paths.get(value))) {
+                    if (!line.isBlank() && !line.startsWith("#")) {
+                        openings.add(line.trim());
+                    }
+                }
+                break;
+            case "--chess960":
+                int positions = value.equals("all") ? Chess960.POSITIONS : Integer.parseInt(value);
+                for (int k = 0; k < positions; k++) {
+                    openings.add(Chess960.startFen((int) ((long) k * Chess960.POSITIONS / positions)));
+                }
+                break;
+            case "--sprt":
+                String[] bounds = value.split(",");
+                sprt = new double[] { Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1]) };
+                break;
+            case "--maxplies":
+                maxPlies = Integer.parseInt(value);
+                break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+
+        Tournament tournament = new Tournament(first, second, openings, concurrency);
+        tournament.setSprt(sprt[0], sprt[1], 0.05, 0.05);
+        if (maxPlies > 0) {
+            tournament.setMaxPlies(maxPlies);
+        }
+        System.out.println(first + " vs " + second + ", " + games + " games on " + concurrency + " threads");
+        TournamentResult result = tournament.run(games, System.out::println);
+        System.out.println("Final: " + result);
+    }
+}
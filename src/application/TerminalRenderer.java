@@ -0,0 +1,325 @@
+package application;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.AttackMap;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Terminal renderer that keeps a copy of what the screen shows and only
+ * redraws the cells that changed. Each frame is composed in one reusable
+ * buffer and written with a single write and flush, which keeps boards
+ * responsive over slow links such as SSH.
+ *
+ * Drawing methods paint into a back buffer; {@link #present(String)} sends the
+ * difference to the terminal and leaves the cursor after a prompt line, below
+ * the drawn content.
+ */
+public class TerminalRenderer {
+
+    public static final int DEFAULT_WIDTH = 80;
+    public static final int DEFAULT_HEIGHT = 24;
+
+    private static final String CSI = "\u001B[";
+    private static final char UNKNOWN = '\uFFFF';
+    private static final int MAX_GAP = 6;
+
+    /**
+     * Cell styles: bits 0-1 the foreground (default, white or yellow pieces),
+     * bit 2 the blue background of highlighted squares.
+     */
+    private static final byte PLAIN = 0;
+    private static final byte WHITE = 1;
+    private static final byte YELLOW = 2;
+    private static final byte HIGHLIGHT = 4;
+
+    private final PrintStream out;
+    private final int width;
+    private final int height;
+    private final char[] glyphs;
+    private final byte[] styles;
+    private final char[] shownGlyphs;
+    private final byte[] shownStyles;
+    private final StringBuilder frame = new StringBuilder(4096);
+    private byte[] bytes = new byte[4096];
+    private boolean cleared;
+    private int usedRows;
+    private int promptRow = -1;
+
+    /**
+     * Constructs a renderer for a terminal of the default size.
+     *
+     * @param out The stream of the terminal.
+     */
+    public TerminalRenderer(PrintStream out) {
+        this(out, DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    /**
+     * Constructs a renderer.
+     *
+     * @param out    The stream of the terminal.
+     * @param width  The number of columns that can be drawn.
+     * @param height The number of rows that can be drawn.
+     */
+    public TerminalRenderer(PrintStream out, int width, int height) {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        glyphs = new char[width * height];
+        styles = new byte[width * height];
+        shownGlyphs = new char[width * height];
+        shownStyles = new byte[width * height];
+        clear();
+        invalidate();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Blanks the back buffer before drawing a new frame.
+     */
+    public void clear() {
+        Arrays.fill(glyphs, ' ');
+        Arrays.fill(styles, PLAIN);
+        usedRows = 0;
+    }
+
+    /**
+     * Forgets what the terminal shows, so the next frame clears the screen and
+     * redraws every cell, e.g. after other output was printed.
+     */
+    public void invalidate() {
+        Arrays.fill(shownGlyphs, UNKNOWN);
+        cleared = false;
+    }
+
+    /**
+     * Draws a match: the board, the captured pieces and the turn. While the
+     * player to move is in check, the squares the opponent attacks are
+     * highlighted, showing where the king cannot go.
+     *
+     * @param chessMatch The chess match.
+     * @param captured   The captured pieces.
+     */
+    public void drawMatch(ChessMatch chessMatch, List<ChessPiece> captured) {
+        boolean[][] attacked = null;
+        if (chessMatch.getCheck() && !chessMatch.getCheckMate()) {
+            Color opponent = chessMatch.getCurrentPlayer() == Color.WHITE ? Color.BLACK : Color.WHITE;
+            attacked = attackedSquares(chessMatch.getAttackMap(opponent));
+        }
+        drawBoard(0, 0, chessMatch.getPieces(), attacked);
+        drawText(10, 0, "Capture pieces:", PLAIN);
+        drawCaptured(11, "White: ", captured, Color.WHITE, WHITE);
+        drawCaptured(12, "Black: ", captured, Color.BLACK, YELLOW);
+        drawText(14, 0, "Turn: " + chessMatch.getTurn(), PLAIN);
+        if (!chessMatch.getCheckMate()) {
+            drawText(15, 0, "Waiting player: " + chessMatch.getCurrentPlayer(), PLAIN);
+            if (chessMatch.getCheck()) {
+                drawText(16, 0, "CHECK", PLAIN);
+            }
+        } else {
+            drawText(15, 0, "CHECKMATE!", PLAIN);
+            drawText(16, 0, "Winner: " + chessMatch.getCurrentPlayer(), PLAIN);
+        }
+    }
+
+    /**
+     * Draws a board with its coordinates, 10 rows by 17 columns.
+     *
+     * @param top           The row of the top edge.
+     * @param left          The column of the left edge.
+     * @param pieces        The pieces on the board.
+     * @param possibleMoves The squares to highlight, or null for none.
+     */
+    public void drawBoard(int top, int left, ChessPiece[][] pieces, boolean[][] possibleMoves) {
+        for (int i = 0; i < pieces.length; i++) {
+            drawText(top + i, left, (8 - i) + " ", PLAIN);
+            for (int j = 0; j < pieces[i].length; j++) {
+                ChessPiece piece = pieces[i][j];
+                byte style = piece == null ? PLAIN : piece.getColor() == Color.WHITE ? WHITE : YELLOW;
+                if (possibleMoves != null && possibleMoves[i][j]) {
+                    style |= HIGHLIGHT;
+                }
+                put(top + i, left + 2 + 2 * j, piece == null ? '-' : piece.toString().charAt(0), style);
+            }
+        }
+        drawText(top + pieces.length, left, "  a b c d e f g h", PLAIN);
+    }
+
+    /**
+     * Draws a board unpacked from a snapshot, 10 rows by 17 columns.
+     *
+     * @param top   The row of the top edge.
+     * @param left  The column of the left edge.
+     * @param cells The 64 squares, index row * 8 + column, holding FEN letters
+     *              (upper case for white) or 0 when empty.
+     */
+    public void drawBoard(int top, int left, char[] cells) {
+        for (int i = 0; i < 8; i++) {
+            drawText(top + i, left, (8 - i) + " ", PLAIN);
+            for (int j = 0; j < 8; j++) {
+                char piece = cells[i * 8 + j];
+                if (piece == 0) {
+                    put(top + i, left + 2 + 2 * j, '-', PLAIN);
+                } else {
+                    // Same letters as the pieces print: pawns lower case, others upper case
+                    char glyph = Character.toUpperCase(piece) == 'P' ? 'p' : Character.toUpperCase(piece);
+                    put(top + i, left + 2 + 2 * j, glyph, Character.isUpperCase(piece) ? WHITE : YELLOW);
+                }
+            }
+        }
+        drawText(top + 8, left, "  a b c d e f g h", PLAIN);
+    }
+
+    /**
+     * Draws plain text, clipped to the width of the terminal.
+     *
+     * @param row    The row.
+     * @param column The column of the first character.
+     * @param text   The text.
+     */
+    public void drawText(int row, int column, String text) {
+        drawText(row, column, text, PLAIN);
+    }
+
+    /**
+     * Sends the changes since the previous frame to the terminal in a single
+     * write, then prints a prompt on the line after the drawn content. Lines
+     * from the prompt down are cleared, since user input was echoed there.
+     *
+     * @param prompt The prompt, or null for none.
+     */
+    public void present(String prompt) {
+        frame.setLength(0);
+        if (!cleared) {
+            frame.append(CSI).append("H").append(CSI).append("2J");
+            Arrays.fill(shownGlyphs, ' ');
+            Arrays.fill(shownStyles, PLAIN);
+            cleared = true;
+        } else if (promptRow >= 0) {
+            // The terminal content from the previous prompt down is unknown
+            Arrays.fill(shownGlyphs, Math.min(promptRow * width, shownGlyphs.length), shownGlyphs.length, UNKNOWN);
+        }
+
+        // Rows from the prompt down are wiped by the clear-to-end below
+        int nextPromptRow = Math.min(usedRows + 1, height - 1);
+        int cursor = -1;
+        byte style = -1;
+        for (int cell = 0; cell < nextPromptRow * width; cell++) {
+            if (glyphs[cell] == shownGlyphs[cell] && styles[cell] == shownStyles[cell]) {
+                continue;
+            }
+            if (cursor >= 0 && cell > cursor && cell - cursor <= MAX_GAP && cell / width == cursor / width) {
+                // Rewriting a few unchanged cells is shorter than a cursor move
+                for (int gap = cursor; gap < cell; gap++) {
+                    style = emit(gap, style);
+                }
+            } else if (cell != cursor) {
+                frame.append(CSI).append(cell / width + 1).append(';').append(cell % width + 1).append('H');
+            }
+            style = emit(cell, style);
+            cursor = cell % width == width - 1 ? -1 : cell + 1;
+        }
+        if (style != PLAIN) {
+            frame.append(UI.ANSI_RESET);
+        }
+
+        promptRow = nextPromptRow;
+        frame.append(CSI).append(promptRow + 1).append(";1H").append(CSI).append('J');
+        if (prompt != null) {
+            frame.append(prompt);
+        }
+        write();
+    }
+
+    /**
+     * Appends a cell to the frame, switching style first if needed.
+     *
+     * @return The style in effect after the cell.
+     */
+    private byte emit(int cell, byte style) {
+        if (styles[cell] != style) {
+            style = styles[cell];
+            appendStyle(style);
+        }
+        frame.append(glyphs[cell]);
+        shownGlyphs[cell] = glyphs[cell];
+        shownStyles[cell] = styles[cell];
+        return style;
+    }
+
+    private static boolean[][] attackedSquares(AttackMap attacks) {
+        boolean[][] squares = new boolean[8][8];
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                squares[i][j] = attacks.isAttacked(i, j);
+            }
+        }
+        return squares;
+    }
+
+    private void drawCaptured(int row, String label, List<ChessPiece> captured, Color color, byte style) {
+        StringBuilder sb = new StringBuilder("[");
+        for (ChessPiece piece : captured) {
+            if (piece.getColor() == color) {
+                sb.append(sb.length() > 1 ? ", " : "").append(piece);
+            }
+        }
+        drawText(row, 0, label, PLAIN);
+        drawText(row, label.length(), sb.append(']').toString(), style);
+    }
+
+    private void drawText(int row, int column, String text, byte style) {
+        for (int i = 0; i < text.length(); i++) {
+            put(row, column + i, text.charAt(i), style);
+        }
+    }
+
+    private void put(int row, int column, char glyph, byte style) {
+        if (row < 0 || row >= height || column < 0 || column >= width) {
+            return;
+        }
+        glyphs[row * width + column] = glyph;
+        styles[row * width + column] = style;
+        usedRows = Math.max(usedRows, row + 1);
+    }
+
+    private void appendStyle(byte style) {
+        frame.append(UI.ANSI_RESET);
+        if ((style & HIGHLIGHT) != 0) {
+            frame.append(UI.ANSI_BLUE_BACKGROUND);
+        }
+        if ((style & 3) == WHITE) {
+            frame.append(UI.ANSI_WHITE);
+        } else if ((style & 3) == YELLOW) {
+            frame.append(UI.ANSI_YELLOW);
+        }
+    }
+
+    /**
+     * Encodes the frame into the reusable byte buffer (all output is ASCII)
+     * and writes it at once.
+     */
+    private void write() {
+        if (bytes.length < frame.length()) {
+            bytes = new byte[frame.length() * 2];
+        }
+        for (int i = 0; i < frame.length(); i++) {
+            char c = frame.charAt(i);
+            bytes[i] = (byte) (c < 128 ? c : '?');
+        }
+        out.write(bytes, 0, frame.length());
+        out.flush();
+    }
+}
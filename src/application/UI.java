@@ -58,7 +58,7 @@ public class UI {
             String s = scan.nextLine();
             char column = s.charAt(0);
             int row = Integer.parseInt(s.substring(1));
-            return new ChessPosition(column, row);
+            return ChessPosition.of(column, row);
         } catch (RuntimeException e) {
             throw new InputMismatchException("Error reading chessPosition");
         }
@@ -0,0 +1,351 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+
+import chess.Chess960;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Color;
+import chess.engine.Engine;
+import chess.engine.Move;
+import chess.engine.PolyglotBook;
+import chess.engine.Search;
+import chess.engine.Tablebase;
+import chess.engine.TimeManager;
+import chess.engine.Zobrist;
+import chess.exception.ChessException;
+
+/**
+ * Entry point that drives the chess engine through the Universal Chess
+ * Interface protocol on standard input and output, as an alternative to the
+ * interactive console of {@link Program}.
+ */
+public class UciProgram {
+
+    private final Engine engine = new Engine();
+    private final Object lock = new Object();
+    private ChessMatch match = new ChessMatch();
+    private Thread searchThread;
+    private TimeManager limits;
+    private boolean waitForRelease;
+    private String[] ponderGo;
+    private boolean chess960;
+    private String bookFile;
+    private String bookKeys;
+
+    /**
+     * Main method that starts the UCI engine.
+     *
+     * @param args Command-line arguments (not used).
+     * @throws IOException If standard input cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        new UciProgram().run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+
+    /**
+     * Reads and executes commands until "quit" or the end of input. Searches run
+     * on their own thread, so commands such as "stop" and "isready" are
+     * handled while the engine is thinking.
+     *
+     * @param in The command source.
+     * @throws IOException If the input cannot be read.
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            try {
+                switch (tokens[0]) {
+                case "uci":
+                    send("id name project-chess-java");
+                    send("id author josivantarcio");
+                    send("option name Hash type spin default 16 min 1 max 4096");
+                    send("option name Threads type spin default 1 min 1 max " + Engine.MAX_THREADS);
+                    send("option name UCI_Chess960 type check default false");
+                    send("option name TablebasePath type string default <empty>");
+                    send("option name BookFile type string default <empty>");
+                    send("option name BookKeys type string default <empty>");
+                    send("uciok");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "ucinewgame":
+                    stopSearch();
+                    engine.newGame();
+                    break;
+                case "setoption":
+                    stopSearch();
+                    setOption(tokens);
+                    break;
+                case "position":
+                    stopSearch();
+                    position(tokens);
+                    break;
+                case "go":
+                    stopSearch();
+                    go(tokens);
+                    break;
+                case "stop":
+                    stopSearch();
+                    break;
+                case "ponderhit":
+                    ponderHit();
+                    break;
+                case "quit":
+                    stopSearch();
+                    return;
+                default:
+                    // Unknown commands are ignored, as the protocol requires
+                }
+            } catch (ChessException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                send("info string " + e.getMessage());
+            }
+        }
+        stopSearch();
+    }
+
+    private void setOption(String[] tokens) {
+        String name = valueOf(tokens, "name", "value");
+        String value = valueOf(tokens, "value", null);
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                engine.setHashSize(Integer.parseInt(value));
+            } else if (name.equalsIgnoreCase("Threads")) {
+                engine.setThreads(Integer.parseInt(value));
+            } else if (name.equalsIgnoreCase("UCI_Chess960")) {
+                chess960 = Boolean.parseBoolean(value);
+            } else if (name.equalsIgnoreCase("TablebasePath")) {
+                Tablebase old = engine.getTablebase();
+                engine.setTablebase(isSet(value) ? new Tablebase(Paths.get(value)) : null);
+                if (old != null) {
+                    old.close();
+                }
+            } else if (name.equalsIgnoreCase("BookFile")) {
+                bookFile = value;
+                openBook();
+            } else if (name.equalsIgnoreCase("BookKeys")) {
+                bookKeys = value;
+                openBook();
+            }
+        } catch (NumberFormatException e) {
+            send("info string Invalid value for option " + name);
+        } catch (IOException | InvalidPathException e) {
+            send("info string Invalid value for option " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the book once both the book file and the Polyglot Random64 key file
+     * are set, replacing the previous one.
+     */
+    private void openBook() throws IOException {
+        PolyglotBook old = engine.getBook();
+        engine.setBook(null);
+        if (old != null) {
+            old.close();
+        }
+        if (isSet(bookFile) && isSet(bookKeys)) {
+            engine.setBook(new PolyglotBook(Paths.get(bookFile), Zobrist.load(Paths.get(bookKeys))));
+        }
+    }
+
+    private static boolean isSet(String option) {
+        return option != null && !option.isEmpty() && !option.equals("<empty>");
+    }
+
+    private void position(String[] tokens) {
+        int i = 1;
+        try {
+            if (tokens.length > 1 && tokens[1].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                    fen.append(tokens[i]).append(' ');
+                }
+                match = new ChessMatch(fen.toString(), chess960);
+            } else {
+                match = chess960 ? new ChessMatch(Chess960.startFen(Chess960.STANDARD)) : new ChessMatch();
+                i = 2;
+            }
+            if (i < tokens.length && tokens[i].equals("moves")) {
+                for (i++; i < tokens.length; i++) {
+                    playMove(tokens[i]);
+                }
+            }
+        } catch (ChessException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            send("info string Invalid position: " + e.getMessage());
+        }
+    }
+
+    private void playMove(String move) {
+        ChessPosition source = ChessPosition.of(move.charAt(0), move.charAt(1) - '0');
+        ChessPosition target = ChessPosition.of(move.charAt(2), move.charAt(3) - '0');
+        match.performChessMove(source, target);
+        if (match.getPromoted() != null && move.length() > 4) {
+            match.replacePromotedPiece(move.substring(4, 5).toUpperCase());
+        }
+    }
+
+    private void go(String[] tokens) {
+        boolean ponder = false;
+        boolean infinite = false;
+        int depth = Search.MAX_DEPTH;
+        long moveTime = 0;
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+            case "ponder":
+                ponder = true;
+                break;
+            case "infinite":
+                infinite = true;
+                break;
+            case "depth":
+                depth = Integer.parseInt(tokens[++i]);
+                break;
+            case "movetime":
+                moveTime = Long.parseLong(tokens[++i]);
+                break;
+            default:
+            }
+        }
+
+        TimeManager timeManager;
+        if (ponder || infinite) {
+            timeManager = new TimeManager();
+        } else if (moveTime > 0) {
+            timeManager = new TimeManager(moveTime);
+        } else {
+            timeManager = clockLimits(tokens);
+        }
+
+        ChessMatch searched = match;
+        int maxDepth = depth;
+        synchronized (lock) {
+            limits = timeManager;
+            waitForRelease = ponder || infinite;
+            ponderGo = ponder ? tokens : null;
+        }
+        searchThread = new Thread(() -> search(searched, maxDepth, timeManager), "uci-search");
+        searchThread.start();
+    }
+
+    /**
+     * Builds the time limits from the wtime/btime/winc/binc/movestogo
+     * arguments of a "go" command, or none if the clock is not given.
+     */
+    private TimeManager clockLimits(String[] tokens) {
+        boolean white = match.getCurrentPlayer() == Color.WHITE;
+        String time = argument(tokens, white ? "wtime" : "btime");
+        if (time == null) {
+            return new TimeManager();
+        }
+        String increment = argument(tokens, white ? "winc" : "binc");
+        String movesToGo = argument(tokens, "movestogo");
+        return new TimeManager(Long.parseLong(time), increment == null ? 0 : Long.parseLong(increment),
+                movesToGo == null ? 0 : Integer.parseInt(movesToGo));
+    }
+
+    private void search(ChessMatch searched, int depth, TimeManager timeManager) {
+        int best = engine.think(searched, depth, timeManager, (d, score, nodes, millis, move) -> send("info depth "
+                + d + " score " + formatScore(score) + " nodes " + nodes + " nps " + nodes * 1000 / Math.max(1, millis)
+                + " time " + millis + " pv " + Move.toString(move)));
+
+        // In infinite and ponder mode the best move is only sent after stop or ponderhit
+        synchronized (lock) {
+            while (waitForRelease) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        int ponder = engine.ponderMove(searched, best);
+        send("bestmove " + Move.toString(best) + (ponder == Move.NONE ? "" : " ponder " + Move.toString(ponder)));
+    }
+
+    private void ponderHit() {
+        synchronized (lock) {
+            if (ponderGo == null) {
+                return;
+            }
+            limits = clockLimits(ponderGo);
+            ponderGo = null;
+            waitForRelease = false;
+            engine.setTimeManager(limits);
+            lock.notifyAll();
+        }
+    }
+
+    private void stopSearch() {
+        synchronized (lock) {
+            if (limits != null) {
+                limits.stop();
+            }
+            waitForRelease = false;
+            ponderGo = null;
+            lock.notifyAll();
+        }
+        if (searchThread != null) {
+            try {
+                searchThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            searchThread = null;
+        }
+    }
+
+    private static String formatScore(int score) {
+        if (Math.abs(score) >= Search.MATE - Search.MAX_DEPTH - 1) {
+            int plies = Search.MATE - Math.abs(score);
+            int moves = (plies + 1) / 2;
+            return "mate " + (score > 0 ? moves : -moves);
+        }
+        return "cp " + score;
+    }
+
+    /**
+     * Retrieves the words following a keyword of a command, up to an optional
+     * end keyword.
+     */
+    private static String valueOf(String[] tokens, String key, String end) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals(key)) {
+                StringBuilder sb = new StringBuilder();
+                for (int j = i + 1; j < tokens.length && !tokens[j].equals(end); j++) {
+                    sb.append(sb.length() > 0 ? " " : "").append(tokens[j]);
+                }
+                return sb.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves the word following a keyword of a command.
+     */
+    private static String argument(String[] tokens, String key) {
+        for (int i = 0; i < tokens.length - 1; i++) {
+            if (tokens[i].equals(key)) {
+                return tokens[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static synchronized void send(String message) {
+        System.out.println(message);
+        System.out.flush();
+    }
+}
@@ -86,6 +86,7 @@ public class Board {
             throw new BoardException("There is already a piece on position " + position);
         }
         pieces[position.getRow()][position.getColumn()] = piece;
+        piece.position = position;
     }
 
     /**
@@ -104,6 +105,7 @@ public class Board {
         }
 
         Piece removedPiece = piece(position);
+        removedPiece.position = null;
         pieces[position.getRow()][position.getColumn()] = null;
         return removedPiece;
     }
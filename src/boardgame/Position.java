@@ -1,12 +1,29 @@
 package boardgame;
 
 /**
- * Represents a position on a board.
+ * Represents a position on a board. The positions returned by
+ * {@link #of(int, int)} are shared and immutable; positions created with the
+ * constructor are private to their owner and may be changed, e.g. as a cursor
+ * while generating moves.
  */
 public class Position {
-    
+
+    /**
+     * Number of rows and columns covered by the shared positions.
+     */
+    public static final int SHARED_SIZE = 16;
+
+    private static final Position[] SHARED = new Position[SHARED_SIZE * SHARED_SIZE];
+
+    static {
+        for (int i = 0; i < SHARED.length; i++) {
+            SHARED[i] = new Position(i / SHARED_SIZE, i % SHARED_SIZE, true);
+        }
+    }
+
     private int row;
     private int column;
+    private final boolean shared;
     
     /**
      * Constructor that initializes a position with specified row and column values.
@@ -15,8 +32,28 @@ public class Position {
      * @param column The column index of the position.
      */
     public Position(int row, int column) {
+        this(row, column, false);
+    }
+
+    private Position(int row, int column, boolean shared) {
         this.row = row;
         this.column = column;
+        this.shared = shared;
+    }
+
+    /**
+     * Retrieves the shared, immutable position with the given indices, without
+     * allocating for boards up to {@link #SHARED_SIZE} squares wide.
+     *
+     * @param row    The row index of the position.
+     * @param column The column index of the position.
+     * @return The shared position, or a new one outside the shared range.
+     */
+    public static Position of(int row, int column) {
+        if (row >= 0 && row < SHARED_SIZE && column >= 0 && column < SHARED_SIZE) {
+            return SHARED[row * SHARED_SIZE + column];
+        }
+        return new Position(row, column);
     }
 
     /**
@@ -32,8 +69,10 @@ public class Position {
      * Sets the row index of the position.
      *
      * @param row The new row index to set.
+     * @throws UnsupportedOperationException If the position is shared.
      */
     public void setRow(int row) {
+        checkNotShared();
         this.row = row;
     }
 
@@ -50,8 +89,10 @@ public class Position {
      * Sets the column index of the position.
      *
      * @param column The new column index to set.
+     * @throws UnsupportedOperationException If the position is shared.
      */
     public void setColumn(int column) {
+        checkNotShared();
         this.column = column;
     }
     
@@ -60,12 +101,20 @@ public class Position {
      *
      * @param row    The new row index to set.
      * @param column The new column index to set.
+     * @throws UnsupportedOperationException If the position is shared.
      */
     public void setValues(int row, int column) {
+        checkNotShared();
         this.row = row;
         this.column = column;
     }
 
+    private void checkNotShared() {
+        if (shared) {
+            throw new UnsupportedOperationException("Shared positions are immutable");
+        }
+    }
+
     /**
      * Returns a string representation of the position in the format "row, column".
      *
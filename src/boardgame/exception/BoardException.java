@@ -7,4 +7,18 @@ public class BoardException extends RuntimeException{
 		super(msg);
 	}
 
+	/**
+	 * Constructs an exception with suppression and the stack trace enabled or
+	 * not. Without both it is cheap to throw and safe to share between threads
+	 * as a preallocated instance.
+	 *
+	 * @param msg                The message.
+	 * @param cause              The cause, or null.
+	 * @param enableSuppression  Whether suppressed exceptions are recorded.
+	 * @param writableStackTrace Whether the stack trace is filled in.
+	 */
+	protected BoardException(String msg, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(msg, cause, enableSuppression, writableStackTrace);
+	}
+
 }
@@ -0,0 +1,156 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.Position;
+
+/**
+ * The squares one side attacks in a position of a {@link ChessMatch}, with
+ * the number of its pieces attacking each. A square counts as attacked when a
+ * piece could capture on it were an enemy piece there, so squares of the own
+ * pieces a side defends are included, and pawns attack diagonally only.
+ * Squares are numbered row * 8 + column, row 0 being rank 8.
+ */
+public final class AttackMap {
+
+	private static final int[][] KNIGHT_STEPS = { { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 },
+			{ 2, -1 }, { 2, 1 } };
+	private static final int[][] STRAIGHT = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+	private static final int[][] DIAGONAL = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+	private static final int[][] KING_STEPS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 },
+			{ 1, -1 }, { 1, 1 } };
+
+	private final Color color;
+	private final byte[] attackers = new byte[64];
+	private long attacked;
+
+	private AttackMap(Color color) {
+		this.color = color;
+	}
+
+	/**
+	 * Computes the attacks of one side in a single pass over its pieces.
+	 *
+	 * @param board  The board.
+	 * @param pieces The pieces on the board.
+	 * @param color  The attacking side.
+	 * @return The attack map.
+	 */
+	static AttackMap of(Board board, PieceList pieces, Color color) {
+		AttackMap map = new AttackMap(color);
+		int first = PieceList.firstGroup(color);
+		for (int type = 0; type < PieceList.TYPES; type++) {
+			for (int k = 0; k < pieces.count(first + type); k++) {
+				Position position = pieces.get(first + type, k).getChessPosition().toPositioin();
+				int row = position.getRow();
+				int column = position.getColumn();
+				switch (type) {
+				case PieceList.PAWN:
+					int forward = color == Color.WHITE ? -1 : 1;
+					map.add(row + forward, column - 1);
+					map.add(row + forward, column + 1);
+					break;
+				case PieceList.KNIGHT:
+					map.step(row, column, KNIGHT_STEPS);
+					break;
+				case PieceList.BISHOP:
+					map.slide(board, row, column, DIAGONAL);
+					break;
+				case PieceList.ROOK:
+					map.slide(board, row, column, STRAIGHT);
+					break;
+				case PieceList.QUEEN:
+					map.slide(board, row, column, STRAIGHT);
+					map.slide(board, row, column, DIAGONAL);
+					break;
+				default:
+					map.step(row, column, KING_STEPS);
+					break;
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Retrieves the attacking side.
+	 *
+	 * @return The color whose attacks the map holds.
+	 */
+	public Color getColor() {
+		return color;
+	}
+
+	/**
+	 * Retrieves the attacked squares as a bitmask, bit row * 8 + column set for
+	 * each.
+	 *
+	 * @return The bitmask.
+	 */
+	public long getAttacked() {
+		return attacked;
+	}
+
+	/**
+	 * Retrieves the number of squares attacked at least once.
+	 *
+	 * @return The number of squares.
+	 */
+	public int getAttackedCount() {
+		return Long.bitCount(attacked);
+	}
+
+	/**
+	 * Checks if a square is attacked.
+	 *
+	 * @param row    The row index (0 is rank 8).
+	 * @param column The column index (0 is file a).
+	 * @return true if at least one piece attacks the square.
+	 */
+	public boolean isAttacked(int row, int column) {
+		return (attacked & 1L << (row * 8 + column)) != 0;
+	}
+
+	/**
+	 * Retrieves the number of pieces attacking a square.
+	 *
+	 * @param row    The row index (0 is rank 8).
+	 * @param column The column index (0 is file a).
+	 * @return The number of attackers, 0 if none.
+	 */
+	public int getAttackers(int row, int column) {
+		return attackers[row * 8 + column];
+	}
+
+	private void add(int row, int column) {
+		if (row >= 0 && row < 8 && column >= 0 && column < 8) {
+			int square = row * 8 + column;
+			attackers[square]++;
+			attacked |= 1L << square;
+		}
+	}
+
+	private void step(int row, int column, int[][] steps) {
+		for (int[] step : steps) {
+			add(row + step[0], column + step[1]);
+		}
+	}
+
+	/**
+	 * Adds the squares along each direction up to and including the first
+	 * occupied one.
+	 */
+	private void slide(Board board, int row, int column, int[][] directions) {
+		for (int[] direction : directions) {
+			int r = row + direction[0];
+			int c = column + direction[1];
+			while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+				add(r, c);
+				if (board.piece(r, c) != null) {
+					break;
+				}
+				r += direction[0];
+				c += direction[1];
+			}
+		}
+	}
+}
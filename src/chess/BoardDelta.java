@@ -0,0 +1,120 @@
+package chess;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The squares changed by one move of a chess match, for observers that keep
+ * their own copy of the board instead of copying {@link ChessMatch#getPieces()}
+ * after every move. Applying the changes in order to the previous board yields
+ * the new one.
+ */
+public final class BoardDelta {
+
+	/**
+	 * Why a square changed.
+	 */
+	public enum Kind {
+		/** The moving piece left the square or arrived on it. */
+		MOVED,
+		/** The moving piece arrived on the square, capturing its occupant. */
+		CAPTURED,
+		/** A pawn on the square was replaced by the promoted piece. */
+		PROMOTED,
+		/** The rook left the square or arrived on it while castling. */
+		CASTLING_ROOK,
+		/** The pawn captured en passant was removed from the square. */
+		EN_PASSANT
+	}
+
+	/**
+	 * A changed square and its new content.
+	 */
+	public static final class Change {
+
+		private final Kind kind;
+		private final ChessPosition position;
+		private final char piece;
+
+		Change(Kind kind, ChessPosition position, char piece) {
+			this.kind = kind;
+			this.position = position;
+			this.piece = piece;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public ChessPosition getPosition() {
+			return position;
+		}
+
+		/**
+		 * Retrieves the new content of the square.
+		 *
+		 * @return The FEN letter of the piece now on the square (upper case for
+		 *         white), or 0 if the square is now empty.
+		 */
+		public char getPiece() {
+			return piece;
+		}
+
+		@Override
+		public String toString() {
+			return kind + " " + position + (piece == 0 ? "" : "=" + piece);
+		}
+	}
+
+	private final long sequence;
+	private final int turn;
+	private final Color currentPlayer;
+	private final boolean check;
+	private final boolean checkMate;
+	private final List<Change> changes;
+
+	BoardDelta(long sequence, int turn, Color currentPlayer, boolean check, boolean checkMate, List<Change> changes) {
+		this.sequence = sequence;
+		this.turn = turn;
+		this.currentPlayer = currentPlayer;
+		this.check = check;
+		this.checkMate = checkMate;
+		this.changes = Collections.unmodifiableList(changes);
+	}
+
+	/**
+	 * Retrieves the position of this delta in the stream of deltas of its
+	 * match, starting at 1, so observers can detect gaps and reorder deltas
+	 * delivered by a multi-threaded executor.
+	 *
+	 * @return The sequence number.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public Color getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	public boolean getCheck() {
+		return check;
+	}
+
+	public boolean getCheckMate() {
+		return checkMate;
+	}
+
+	public List<Change> getChanges() {
+		return changes;
+	}
+
+	@Override
+	public String toString() {
+		return "#" + sequence + " " + changes;
+	}
+}
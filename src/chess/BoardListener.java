@@ -0,0 +1,16 @@
+package chess;
+
+/**
+ * Observer of the moves played in a chess match.
+ */
+@FunctionalInterface
+public interface BoardListener {
+
+	/**
+	 * Called on the listener executor of the match after a move or a promotion
+	 * choice was applied.
+	 *
+	 * @param delta The squares changed by the move.
+	 */
+	void boardChanged(BoardDelta delta);
+}
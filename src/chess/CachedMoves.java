@@ -0,0 +1,43 @@
+package chess;
+
+/**
+ * Holds the move matrix of a piece in one position of a {@link ChessMatch},
+ * with the results of the self-check test found so far for its targets. King
+ * moves depend on the check flag and pawn moves on the en passant pawn, so the
+ * values they were computed with are kept to detect stale entries.
+ */
+class CachedMoves {
+
+	static final byte UNKNOWN = 0;
+	static final byte LEGAL = 1;
+	static final byte ILLEGAL = 2;
+
+	final boolean[][] moves;
+	final boolean check;
+	final ChessPiece enPassant;
+	private byte[][] legality;
+
+	/**
+	 * Constructs an entry for a freshly computed move matrix.
+	 *
+	 * @param moves     The possible moves of the piece.
+	 * @param check     The check flag when the moves were computed.
+	 * @param enPassant The en passant pawn when the moves were computed.
+	 */
+	CachedMoves(boolean[][] moves, boolean check, ChessPiece enPassant) {
+		this.moves = moves;
+		this.check = check;
+		this.enPassant = enPassant;
+	}
+
+	byte legality(int row, int column) {
+		return legality == null ? UNKNOWN : legality[row][column];
+	}
+
+	void setLegality(int row, int column, byte value) {
+		if (legality == null) {
+			legality = new byte[moves.length][moves[0].length];
+		}
+		legality[row][column] = value;
+	}
+}
@@ -0,0 +1,75 @@
+package chess;
+
+/**
+ * Start positions of Chess960 (Fischer random chess), numbered 0 to 959 as in
+ * the Scharnagl scheme, where position 518 is the standard start position.
+ */
+public final class Chess960 {
+
+	public static final int POSITIONS = 960;
+	public static final int STANDARD = 518;
+
+	private static final int[][] KNIGHTS = { { 0, 1 }, { 0, 2 }, { 0, 3 }, { 0, 4 }, { 1, 2 }, { 1, 3 }, { 1, 4 },
+			{ 2, 3 }, { 2, 4 }, { 3, 4 } };
+
+	private Chess960() {
+	}
+
+	/**
+	 * Retrieves the back rank of a start position, from file a to file h.
+	 *
+	 * @param index The position number, from 0 to 959.
+	 * @return The white pieces in FEN letters, e.g. "RNBQKBNR" for 518.
+	 * @throws IllegalArgumentException If the number is out of range.
+	 */
+	public static String backRank(int index) {
+		if (index < 0 || index >= POSITIONS) {
+			throw new IllegalArgumentException("Invalid Chess960 position: " + index);
+		}
+		char[] rank = new char[8];
+		int n = index;
+		rank[2 * (n % 4) + 1] = 'B';
+		n /= 4;
+		rank[2 * (n % 4)] = 'B';
+		n /= 4;
+		place(rank, 'Q', n % 6);
+		n /= 6;
+		// Each placement counts only the squares still free, so the second
+		// knight index drops by one once the first knight is placed
+		place(rank, 'N', KNIGHTS[n][0]);
+		place(rank, 'N', KNIGHTS[n][1] - 1);
+		place(rank, 'R', 0);
+		place(rank, 'K', 0);
+		place(rank, 'R', 0);
+		return new String(rank);
+	}
+
+	/**
+	 * Retrieves a start position in FEN, with the castling rights given as rook
+	 * files (Shredder-FEN) so the match plays by Chess960 rules even for
+	 * position 518.
+	 *
+	 * @param index The position number, from 0 to 959.
+	 * @return The FEN string of the start position.
+	 * @throws IllegalArgumentException If the number is out of range.
+	 */
+	public static String startFen(int index) {
+		String white = backRank(index);
+		String castling = "" + (char) ('A' + white.lastIndexOf('R')) + (char) ('A' + white.indexOf('R'));
+		return white.toLowerCase() + "/pppppppp/8/8/8/8/PPPPPPPP/" + white + " w " + castling
+				+ castling.toLowerCase() + " - 0 1";
+	}
+
+	/**
+	 * Places a piece on the free square with the given index, counting free
+	 * squares from file a.
+	 */
+	private static void place(char[] rank, char piece, int freeIndex) {
+		for (int i = 0; i < rank.length; i++) {
+			if (rank[i] == 0 && freeIndex-- == 0) {
+				rank[i] = piece;
+				return;
+			}
+		}
+	}
+}
@@ -1,13 +1,20 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.exception.ChessException;
+import chess.metrics.Metrics;
+import chess.metrics.MoveEvent;
 import chess.pieces.Bishop;
 import chess.pieces.King;
 import chess.pieces.Knight;
@@ -20,6 +27,8 @@ import chess.pieces.Rook;
  */
 public class ChessMatch {
 
+	private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
 	private int turn;
 	private Color currentPlayer;
 	private Board board;
@@ -27,9 +36,34 @@ public class ChessMatch {
 	private boolean checkMate;
 	private ChessPiece enPassant;
 	private ChessPiece promoted;
+	private ChessPiece lastCaptured;
+	private int[] castlingColumns = { 7, 0, 7, 0 };
+	private boolean chess960;
 
-	private List<Piece> piecesOntheBoard = new ArrayList<>();
+	private PieceList piecesOntheBoard = new PieceList();
 	private List<Piece> capturedPieces = new ArrayList<>();
+	private List<MoveRecord> searchRecords = new ArrayList<>();
+	private List<HistoryRecord> history = new ArrayList<>();
+	private List<HistoryRecord> redoStack = new ArrayList<>();
+	private PiecePool sparePieces = new PiecePool();
+	private Map<Piece, CachedMoves> moveCache = new IdentityHashMap<>();
+	private AttackMap[] attackMaps = new AttackMap[2];
+	private List<BoardListener> boardListeners = new CopyOnWriteArrayList<>();
+	private Executor listenerExecutor;
+	private List<BoardDelta.Change> recordedChanges;
+	private long deltaSequence;
+
+	/**
+	 * Single daemon thread delivering board deltas of every match that has no
+	 * executor of its own, created on first use.
+	 */
+	private static final class DefaultListenerExecutor {
+		static final ExecutorService INSTANCE = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "board-listeners");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
 
 	/**
 	 * Constructs a new chess match with an 8x8 board and initializes the game
@@ -43,6 +77,124 @@ public class ChessMatch {
 		initialSetup();
 	}
 
+	/**
+	 * Constructs a chess match from a position in Forsyth-Edwards Notation.
+	 *
+	 * @param fen The FEN string, e.g.
+	 *            "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+	 * @throws ChessException If the FEN string is invalid.
+	 */
+	public ChessMatch(String fen) {
+		this(fen, false);
+	}
+
+	/**
+	 * Constructs a chess match from a position in Forsyth-Edwards Notation,
+	 * optionally forcing Chess960 castling, as a UCI host does for positions
+	 * whose kings and rooks stand on their standard squares.
+	 *
+	 * @param fen      The FEN string.
+	 * @param chess960 true to give castling moves as the king moving onto its
+	 *                 own rook whatever the position.
+	 * @throws ChessException If the FEN string is invalid.
+	 */
+	public ChessMatch(String fen, boolean chess960) {
+		board = new Board(8, 8);
+		loadFen(fen);
+		this.chess960 |= chess960;
+	}
+
+	/**
+	 * Sets the match back to the standard start position in place, as
+	 * {@link #load(String)} does.
+	 */
+	public void reset() {
+		load(START_FEN);
+	}
+
+	/**
+	 * Sets up a position in Forsyth-Edwards Notation in place of the current
+	 * game. The board, the piece lists and the piece objects of the previous
+	 * game are reused, so a match can replay any number of games without
+	 * allocating per game; the move history is cleared, while board listeners
+	 * stay registered and receive the content of every square.
+	 *
+	 * @param fen The FEN string.
+	 * @throws ChessException If the FEN string is invalid; the match must then
+	 *                        be loaded again before it is used.
+	 */
+	public void load(String fen) {
+		load(fen, false);
+	}
+
+	/**
+	 * Sets up a position in place of the current game, optionally forcing
+	 * Chess960 castling as {@link #ChessMatch(String, boolean)} does.
+	 *
+	 * @param fen      The FEN string.
+	 * @param chess960 true to give castling moves as the king moving onto its
+	 *                 own rook whatever the position.
+	 * @throws ChessException If the FEN string is invalid.
+	 */
+	public void load(String fen, boolean chess960) {
+		clear();
+		loadFen(fen);
+		this.chess960 |= chess960;
+		if (!boardListeners.isEmpty()) {
+			List<BoardDelta.Change> changes = new ArrayList<>();
+			for (int i = 0; i < board.getRows(); i++) {
+				for (int j = 0; j < board.getColumns(); j++) {
+					addSquare(changes, Position.of(i, j));
+				}
+			}
+			publish(changes);
+		}
+	}
+
+	/**
+	 * Empties the board and the game state, handing every piece the game used
+	 * to the spare pieces: those on the board, the captured ones and the pawns
+	 * replaced by promotions.
+	 */
+	private void clear() {
+		for (int i = 0; i < board.getRows(); i++) {
+			for (int j = 0; j < board.getColumns(); j++) {
+				Piece p = board.removePiece(Position.of(i, j));
+				if (p != null) {
+					sparePieces.release((ChessPiece) p);
+				}
+			}
+		}
+		for (Piece p : capturedPieces) {
+			sparePieces.release((ChessPiece) p);
+		}
+		// Pawns of moves taken back are on the board again, so only the
+		// history still played holds promoted pawns
+		for (HistoryRecord record : history) {
+			if (record.promotedPawn != null) {
+				sparePieces.release(record.promotedPawn);
+			}
+		}
+		for (MoveRecord record : searchRecords) {
+			if (record.promotedPawn != null) {
+				sparePieces.release(record.promotedPawn);
+			}
+		}
+		piecesOntheBoard.clear();
+		capturedPieces.clear();
+		history.clear();
+		redoStack.clear();
+		searchRecords.clear();
+		moveCache.clear();
+		attackMaps[0] = null;
+		attackMaps[1] = null;
+		enPassant = null;
+		promoted = null;
+		lastCaptured = null;
+		check = false;
+		checkMate = false;
+	}
+
 	/**
 	 * Retrieves the current turn number.
 	 *
@@ -97,6 +249,127 @@ public class ChessMatch {
 		return promoted;
 	}
 
+	/**
+	 * Retrieves the piece captured by the last move played with
+	 * {@link #tryChessMove(ChessPosition, ChessPosition)} or
+	 * {@link #performChessMove(ChessPosition, ChessPosition)}.
+	 *
+	 * @return The captured piece, or null if the move captured nothing.
+	 */
+	public ChessPiece getLastCaptured() {
+		return lastCaptured;
+	}
+
+	/**
+	 * Retrieves the number of pieces left on the board, kings included.
+	 *
+	 * @return The number of pieces on the board.
+	 */
+	public int getPieceCount() {
+		return piecesOntheBoard.size();
+	}
+
+	/**
+	 * Checks if castling follows the Chess960 convention, where a castling move
+	 * is given as the king moving onto its own rook. Otherwise it is given as
+	 * the king moving two squares.
+	 *
+	 * @return true for a Chess960 match.
+	 */
+	public boolean isChess960() {
+		return chess960;
+	}
+
+	/**
+	 * Retrieves the starting column of the rook a king castles with, as set up
+	 * by the start position or the FEN castling field.
+	 *
+	 * @param color    The color of the king.
+	 * @param kingside true for the rook on the h-file side of the king.
+	 * @return The column of the rook, or -1 if that side never had the right.
+	 */
+	public int getCastlingRookColumn(Color color, boolean kingside) {
+		return castlingColumns[castlingIndex(color, kingside)];
+	}
+
+	/**
+	 * Checks if a king still has a castling right: neither the king nor the
+	 * castling rook has moved, and the rook was not captured. Whether the
+	 * squares in between are free or attacked is not checked.
+	 *
+	 * @param color    The color of the king.
+	 * @param kingside true for kingside castling.
+	 * @return true if the king may castle on that side.
+	 */
+	public boolean hasCastlingRight(Color color, boolean kingside) {
+		int column = getCastlingRookColumn(color, kingside);
+		if (column < 0) {
+			return false;
+		}
+		int row = color == Color.WHITE ? 7 : 0;
+		ChessPiece king = piecesOntheBoard.king(color);
+		Piece rook = board.piece(row, column);
+		return king != null && king.getMoveCount() == 0 && king.getChessPosition().toPositioin().getRow() == row
+				&& rook instanceof Rook && ((ChessPiece) rook).getMoveCount() == 0
+				&& ((ChessPiece) rook).getColor() == color;
+	}
+
+	/**
+	 * Retrieves the column a castling king lands on, g or c whatever its
+	 * starting column.
+	 *
+	 * @param kingside true for kingside castling.
+	 * @return The column of the king after castling.
+	 */
+	public static int castlingKingTarget(boolean kingside) {
+		return kingside ? 6 : 2;
+	}
+
+	/**
+	 * Retrieves the column a castling rook lands on, f or d whatever its
+	 * starting column.
+	 *
+	 * @param kingside true for kingside castling.
+	 * @return The column of the rook after castling.
+	 */
+	public static int castlingRookTarget(boolean kingside) {
+		return kingside ? 5 : 3;
+	}
+
+	private static int castlingIndex(Color color, boolean kingside) {
+		return (color == Color.WHITE ? 0 : 2) + (kingside ? 0 : 1);
+	}
+
+	/**
+	 * Registers a listener notified with the changed squares after every move.
+	 *
+	 * @param listener The listener.
+	 */
+	public void addBoardListener(BoardListener listener) {
+		boardListeners.add(listener);
+	}
+
+	/**
+	 * Unregisters a board listener.
+	 *
+	 * @param listener The listener.
+	 */
+	public void removeBoardListener(BoardListener listener) {
+		boardListeners.remove(listener);
+	}
+
+	/**
+	 * Sets the executor that delivers board deltas to the listeners. By default
+	 * a single thread shared by all matches delivers them in order; with a
+	 * multi-threaded executor listeners should order deltas by
+	 * {@link BoardDelta#getSequence()}.
+	 *
+	 * @param executor The executor, or null for the default one.
+	 */
+	public void setListenerExecutor(Executor executor) {
+		listenerExecutor = executor;
+	}
+
 	/**
 	 * Retrieves a matrix representation of all chess pieces on the board.
 	 *
@@ -112,6 +385,36 @@ public class ChessMatch {
 		return mat;
 	}
 
+	/**
+	 * Retrieves the chess piece at the given board coordinates without copying
+	 * the board.
+	 *
+	 * @param row    The row index (0 is rank 8).
+	 * @param column The column index (0 is file a).
+	 * @return The piece at the coordinates, or null if the square is empty.
+	 */
+	public ChessPiece getPiece(int row, int column) {
+		return (ChessPiece) board.piece(row, column);
+	}
+
+	/**
+	 * Retrieves the squares a side attacks in the current position. The map is
+	 * computed once per position and shared by every caller until the board
+	 * changes.
+	 *
+	 * @param color The attacking side.
+	 * @return The attack map.
+	 */
+	public AttackMap getAttackMap(Color color) {
+		int index = color == Color.WHITE ? 0 : 1;
+		AttackMap map = attackMaps[index];
+		if (map == null) {
+			map = AttackMap.of(board, piecesOntheBoard, color);
+			attackMaps[index] = map;
+		}
+		return map;
+	}
+
 	/**
 	 * Retrieves possible moves for a piece at a given source position.
 	 *
@@ -121,7 +424,12 @@ public class ChessMatch {
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
 		Position position = sourcePosition.toPositioin();
 		validateSourcePosition(position);
-		return board.piece(position).possibleMovies();
+		boolean[][] moves = cachedMoves(board.piece(position)).moves;
+		boolean[][] copy = new boolean[moves.length][];
+		for (int i = 0; i < moves.length; i++) {
+			copy[i] = moves[i].clone();
+		}
+		return copy;
 	}
 
 	/**
@@ -130,20 +438,81 @@ public class ChessMatch {
 	 * @param sourcePosition The source position of the move.
 	 * @param targetPosition The target position of the move.
 	 * @return The captured piece, if any.
+	 * @throws ChessException If the move is rejected; the exception is the
+	 *                        shared instance of its {@link MoveRejection}.
 	 */
 	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+		MoveRejection rejection = tryChessMove(sourcePosition, targetPosition);
+		if (rejection != null) {
+			throw rejection.exception();
+		}
+		return lastCaptured;
+	}
+
+	/**
+	 * Performs a chess move if it is legal, reporting a rejection as a value
+	 * instead of an exception. The captured piece, if any, is then available
+	 * from {@link #getLastCaptured()}.
+	 *
+	 * @param sourcePosition The source position of the move.
+	 * @param targetPosition The target position of the move.
+	 * @return null if the move was played, otherwise why it was rejected.
+	 */
+	public MoveRejection tryChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+		MoveEvent event = new MoveEvent();
+		if (!Metrics.ENABLED && !event.isEnabled()) {
+			return applyChessMove(sourcePosition, targetPosition);
+		}
+		long start = System.nanoTime();
+		event.begin();
+		MoveRejection rejection = null;
+		try {
+			rejection = applyChessMove(sourcePosition, targetPosition);
+			return rejection;
+		} finally {
+			event.end();
+			if (Metrics.ENABLED) {
+				Metrics.PERFORM_CHESS_MOVE.recordSince(start);
+			}
+			if (event.shouldCommit()) {
+				event.source = sourcePosition.toString();
+				event.target = targetPosition.toString();
+				event.accepted = rejection == null;
+				event.check = check;
+				event.checkMate = checkMate;
+				event.commit();
+			}
+		}
+	}
+
+	private MoveRejection applyChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
 		Position source = sourcePosition.toPositioin();
 		Position target = targetPosition.toPositioin();
-		validateSourcePosition(source);
-		validateTargetposition(source, target);
+		MoveRejection rejection = checkSourcePosition(source);
+		if (rejection == null) {
+			rejection = checkTargetPosition(source, target);
+		}
+		if (rejection != null) {
+			return rejection;
+		}
+		byte legality = cachedMoves(board.piece(source)).legality(target.getRow(), target.getColumn());
+		if (legality == CachedMoves.ILLEGAL) {
+			return MoveRejection.SELF_CHECK;
+		}
+		recordedChanges = boardListeners.isEmpty() ? null : new ArrayList<>();
+		boolean castling = isCastling(source, target);
 		Piece capturePiece = makeMove(source, target);
+		List<BoardDelta.Change> changes = recordedChanges;
+		recordedChanges = null;
 
-		if (testCheck(currentPlayer)) {
-			undoMove(source, target, capturePiece);
-			throw new ChessException("You can't put yourself in check");
+		if (legality == CachedMoves.UNKNOWN && testCheck(currentPlayer)) {
+			undoMove(source, target, capturePiece, castling);
+			return MoveRejection.SELF_CHECK;
 		}
 
 		ChessPiece movedPiece = (ChessPiece) board.piece(target);
+		HistoryRecord record = new HistoryRecord(source, target, capturePiece, castling, enPassant, promoted, check,
+				checkMate, turn, currentPlayer);
 
 		// Check for pawn promotion
 		promoted = null;
@@ -151,7 +520,13 @@ public class ChessMatch {
 			if (movedPiece.getColor() == Color.WHITE && target.getRow() == 0
 					|| movedPiece.getColor() == Color.BLACK && target.getRow() == 7) {
 				promoted = (ChessPiece) board.piece(target);
-				promoted = replacePromotedPiece("Q");
+				promoted = promote("Q");
+				record.promotedPawn = movedPiece;
+				record.promotionType = "Q";
+				if (changes != null) {
+					changes.add(new BoardDelta.Change(BoardDelta.Kind.PROMOTED, promoted.getChessPosition(),
+							fenLetter(promoted)));
+				}
 			}
 		}
 
@@ -170,11 +545,165 @@ public class ChessMatch {
 		} else {
 			enPassant = null;
 		}
-		return (ChessPiece) capturePiece;
+		// Moves of the side that just moved are recomputed after the next move anyway
+		moveCache.keySet().removeIf(p -> ((ChessPiece) p).getColor() != currentPlayer);
+		saveStateAfter(record);
+		history.add(record);
+		redoStack.clear();
+		publish(changes);
+		lastCaptured = (ChessPiece) capturePiece;
+		return null;
+	}
+
+	/**
+	 * Retrieves the moves played so far, in coordinate notation such as
+	 * "e2e4" or "e7e8q", without the moves taken back.
+	 *
+	 * @return The moves, oldest first.
+	 */
+	public List<String> getMoveHistory() {
+		List<String> moves = new ArrayList<>(history.size());
+		for (HistoryRecord record : history) {
+			String move = ChessPosition.fromPosition(record.source).toString()
+					+ ChessPosition.fromPosition(record.target);
+			moves.add(record.promotionType == null ? move : move + record.promotionType.toLowerCase());
+		}
+		return moves;
+	}
+
+	/**
+	 * Checks if there is a move to take back.
+	 *
+	 * @return true if {@link #takeback()} would undo a move.
+	 */
+	public boolean canTakeback() {
+		return !history.isEmpty();
+	}
+
+	/**
+	 * Checks if there is a taken back move to play again.
+	 *
+	 * @return true if {@link #redo()} would replay a move.
+	 */
+	public boolean canRedo() {
+		return !redoStack.isEmpty();
+	}
+
+	/**
+	 * Takes back the last move played with
+	 * {@link #performChessMove(ChessPosition, ChessPosition)}, in constant
+	 * time: the board, the promotion, the en passant pawn, the check flags and
+	 * the turn are restored from the move history. Playing a new move discards
+	 * the moves taken back.
+	 *
+	 * @return false if there was no move to take back.
+	 */
+	public boolean takeback() {
+		if (history.isEmpty()) {
+			return false;
+		}
+		HistoryRecord record = history.remove(history.size() - 1);
+		if (record.promotedPawn != null) {
+			ChessPiece piece = (ChessPiece) board.removePiece(record.target);
+			piecesOntheBoard.remove(piece);
+			board.placePiece(record.promotedPawn, record.target);
+			piecesOntheBoard.add(record.promotedPawn);
+			invalidateMoves();
+		}
+		// undoMove recognizes an en passant capture by the en passant pawn
+		enPassant = record.previousEnPassant;
+		undoMove(record.source, record.target, record.captured, record.castling);
+		promoted = record.previousPromoted;
+		check = record.previousCheck;
+		checkMate = record.previousCheckMate;
+		turn = record.previousTurn;
+		currentPlayer = record.previousPlayer;
+		redoStack.add(record);
+		publishSquares(record);
+		return true;
+	}
+
+	/**
+	 * Plays again the last move taken back with {@link #takeback()}, with the
+	 * same promotion, in constant time: the check flags and the turn are
+	 * restored from the move history rather than recomputed.
+	 *
+	 * @return false if there was no move to redo.
+	 */
+	public boolean redo() {
+		if (redoStack.isEmpty()) {
+			return false;
+		}
+		HistoryRecord record = redoStack.remove(redoStack.size() - 1);
+		makeMove(record.source, record.target);
+		promoted = null;
+		if (record.promotedPawn != null) {
+			board.removePiece(record.target);
+			piecesOntheBoard.remove(record.promotedPawn);
+			promoted = newPiece(record.promotionType, record.promotedPawn.getColor());
+			board.placePiece(promoted, record.target);
+			piecesOntheBoard.add(promoted);
+			invalidateMoves();
+		}
+		enPassant = record.enPassant;
+		check = record.check;
+		checkMate = record.checkMate;
+		turn = record.turn;
+		currentPlayer = record.currentPlayer;
+		history.add(record);
+		lastCaptured = (ChessPiece) record.captured;
+		publishSquares(record);
+		return true;
+	}
+
+	private void saveStateAfter(HistoryRecord record) {
+		record.enPassant = enPassant;
+		record.check = check;
+		record.checkMate = checkMate;
+		record.turn = turn;
+		record.currentPlayer = currentPlayer;
+	}
+
+	/**
+	 * Publishes the current content of every square a history move touches,
+	 * after it was taken back or played again.
+	 */
+	private void publishSquares(HistoryRecord record) {
+		if (boardListeners.isEmpty()) {
+			return;
+		}
+		List<BoardDelta.Change> changes = new ArrayList<>();
+		int row = record.source.getRow();
+		int from = record.source.getColumn();
+		int to = record.target.getColumn();
+		addSquare(changes, record.source);
+		addSquare(changes, record.target);
+		if (record.castling) {
+			boolean kingside = to > from;
+			if (castlingKingTarget(kingside) != to) {
+				addSquare(changes, Position.of(row, castlingKingTarget(kingside)));
+			}
+			int rookColumn = getCastlingRookColumn(record.previousPlayer, kingside);
+			if (rookColumn != to) {
+				addSquare(changes, Position.of(row, rookColumn));
+			}
+			addSquare(changes, Position.of(row, castlingRookTarget(kingside)));
+		}
+		if (to != from && record.captured instanceof Pawn && record.captured == record.previousEnPassant) {
+			addSquare(changes, Position.of(row, to));
+		}
+		publish(changes);
+	}
+
+	private void addSquare(List<BoardDelta.Change> changes, Position position) {
+		ChessPiece piece = (ChessPiece) board.piece(position);
+		changes.add(new BoardDelta.Change(BoardDelta.Kind.MOVED, ChessPosition.fromPosition(position),
+				piece == null ? 0 : fenLetter(piece)));
 	}
 
 	/**
-	 * Replaces a promoted pawn with a new piece of the specified type.
+	 * Replaces a promoted pawn with a new piece of the specified type. Check,
+	 * checkmate and the player to move are recomputed for the new piece.
 	 *
 	 * @param type The type of piece to promote to ("B", "N", "R", "Q").
 	 * @return The new promoted piece.
@@ -186,9 +715,40 @@ public class ChessMatch {
 		if (!type.equals("B") && !type.equals("N") && !type.equals("R") && !type.equals("Q")) {
 			return promoted;
 		}
+		Color mover = promoted.getColor();
+		ChessPiece newPiece = promote(type);
+		promoted = newPiece;
+
+		// The new piece may give check or mate where the queen did not, or the
+		// other way round
+		check = testCheck(opponent(mover));
+		boolean mate = testCheckMate(opponent(mover));
+		if (mate && !checkMate) {
+			turn--;
+			currentPlayer = mover;
+		} else if (!mate && checkMate) {
+			nextTurn();
+		}
+		checkMate = mate;
+
+		HistoryRecord last = history.isEmpty() ? null : history.get(history.size() - 1);
+		if (last != null && last.promotedPawn != null) {
+			last.promotionType = type;
+			saveStateAfter(last);
+		}
+		if (!boardListeners.isEmpty()) {
+			List<BoardDelta.Change> changes = new ArrayList<>();
+			changes.add(new BoardDelta.Change(BoardDelta.Kind.PROMOTED, newPiece.getChessPosition(), fenLetter(newPiece)));
+			publish(changes);
+		}
+		return newPiece;
+	}
+
+	private ChessPiece promote(String type) {
 		Position pos = promoted.getChessPosition().toPositioin();
 		Piece p = board.removePiece(pos);
-		piecesOntheBoard.remove(p);
+		piecesOntheBoard.remove((ChessPiece) p);
+		invalidateMoves();
 
 		ChessPiece newPiece = newPiece(type, promoted.getColor());
 		board.placePiece(newPiece, pos);
@@ -197,7 +757,68 @@ public class ChessMatch {
 		return newPiece;
 	}
 
+	/**
+	 * Plays a move for engine search without validation, check detection or
+	 * mate detection. The caller is responsible for only passing pseudo-legal
+	 * moves and for taking them back with {@link #undoSearchMove()}.
+	 *
+	 * @param source        The source position of the move.
+	 * @param target        The target position of the move.
+	 * @param promotionType The promotion piece type ("B", "N", "R", "Q") or null.
+	 */
+	public void searchMove(Position source, Position target, String promotionType) {
+		MoveRecord record = new MoveRecord(source, target, enPassant, promoted, check);
+		record.castling = isCastling(source, target);
+		record.captured = makeMove(source, target);
+
+		ChessPiece movedPiece = (ChessPiece) board.piece(target);
+		if (promotionType != null && movedPiece instanceof Pawn) {
+			invalidateMoves();
+			board.removePiece(target);
+			piecesOntheBoard.remove(movedPiece);
+			ChessPiece newPiece = newPiece(promotionType, movedPiece.getColor());
+			board.placePiece(newPiece, target);
+			piecesOntheBoard.add(newPiece);
+			record.promotedPawn = movedPiece;
+		}
+
+		if (movedPiece instanceof Pawn && Math.abs(target.getRow() - source.getRow()) == 2) {
+			enPassant = movedPiece;
+		} else {
+			enPassant = null;
+		}
+		promoted = null;
+		searchRecords.add(record);
+		nextTurn();
+	}
+
+	/**
+	 * Takes back the last move played with
+	 * {@link #searchMove(Position, Position, String)}, restoring the en passant,
+	 * promotion and check state that preceded it.
+	 */
+	public void undoSearchMove() {
+		MoveRecord record = searchRecords.remove(searchRecords.size() - 1);
+		turn--;
+		currentPlayer = opponent(currentPlayer);
+		enPassant = record.previousEnPassant;
+		promoted = record.previousPromoted;
+		check = record.previousCheck;
+
+		if (record.promotedPawn != null) {
+			invalidateMoves();
+			Piece newPiece = board.removePiece(record.target);
+			piecesOntheBoard.remove((ChessPiece) newPiece);
+			board.placePiece(record.promotedPawn, record.target);
+			piecesOntheBoard.add(record.promotedPawn);
+		}
+		undoMove(record.source, record.target, record.captured, record.castling);
+	}
+
 	private ChessPiece newPiece(String type, Color color) {
+		ChessPiece spare = sparePiece(type.charAt(0), color);
+		if (spare != null)
+			return spare;
 		if (type.equals("B"))
 			return new Bishop(board, color);
 		if (type.equals("N"))
@@ -209,91 +830,149 @@ public class ChessMatch {
 		return null;
 	}
 
+	/**
+	 * Checks if a move is castling: an unmoved king moving two squares, or in
+	 * Chess960 moving onto its own rook. Decided before the move is made, since
+	 * afterwards the squares of a Chess960 castling may look like a plain king
+	 * or rook move.
+	 */
+	private boolean isCastling(Position source, Position target) {
+		Piece p = board.piece(source);
+		if (!(p instanceof King) || ((ChessPiece) p).getMoveCount() != 0 || source.getRow() != target.getRow()) {
+			return false;
+		}
+		if (chess960) {
+			Piece rook = board.piece(target);
+			return rook instanceof Rook && ((ChessPiece) rook).getColor() == ((ChessPiece) p).getColor();
+		}
+		return Math.abs(target.getColumn() - source.getColumn()) == 2;
+	}
+
 	private Piece makeMove(Position source, Position target) {
+		if (isCastling(source, target)) {
+			castle(source, target);
+			return null;
+		}
+		invalidateMoves();
 		ChessPiece p = (ChessPiece) board.removePiece(source);
 		p.increaseMoveCount();
 		Piece capturePiece = board.removePiece(target);
 		board.placePiece(p, target);
+		record(BoardDelta.Kind.MOVED, source, null);
+		record(capturePiece != null ? BoardDelta.Kind.CAPTURED : BoardDelta.Kind.MOVED, target, p);
 
 		if (capturePiece != null) {
-			piecesOntheBoard.remove(capturePiece);
+			piecesOntheBoard.remove((ChessPiece) capturePiece);
 			capturedPieces.add(capturePiece);
 		}
 
-		// Check for castling (kingside)
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
-			board.placePiece(rook, targetT);
-			rook.increaseMoveCount();
-		}
-
-		// Check for castling (queenside)
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
-			board.placePiece(rook, targetT);
-			rook.increaseMoveCount();
-		}
-
 		// Check for en passant
 		if (p instanceof Pawn) {
 			if (source.getColumn() != target.getColumn() && capturePiece == null) {
 				Position pawnPosition;
 				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
+					pawnPosition = Position.of(target.getRow() + 1, target.getColumn());
 				} else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
+					pawnPosition = Position.of(target.getRow() - 1, target.getColumn());
 				}
 				capturePiece = board.removePiece(pawnPosition);
 				capturedPieces.add(capturePiece);
-				piecesOntheBoard.remove(capturePiece);
+				piecesOntheBoard.remove((ChessPiece) capturePiece);
+				record(BoardDelta.Kind.EN_PASSANT, pawnPosition, null);
 			}
 		}
 
 		return capturePiece;
 	}
 
-	private void undoMove(Position source, Position target, Piece capturedPiece) {
+	/**
+	 * Moves a king and its castling rook to the castling squares. In Chess960
+	 * these may overlap the starting squares, so both pieces are lifted before
+	 * either is placed.
+	 */
+	private void castle(Position source, Position target) {
+		invalidateMoves();
+		boolean kingside = target.getColumn() > source.getColumn();
+		int row = source.getRow();
+		ChessPiece king = (ChessPiece) board.removePiece(source);
+		Position rookSource = Position.of(row, getCastlingRookColumn(king.getColor(), kingside));
+		Position kingTarget = Position.of(row, castlingKingTarget(kingside));
+		Position rookTarget = Position.of(row, castlingRookTarget(kingside));
+		ChessPiece rook = (ChessPiece) board.removePiece(rookSource);
+		board.placePiece(king, kingTarget);
+		board.placePiece(rook, rookTarget);
+		king.increaseMoveCount();
+		rook.increaseMoveCount();
+		record(BoardDelta.Kind.MOVED, source, null);
+		record(BoardDelta.Kind.CASTLING_ROOK, rookSource, null);
+		record(BoardDelta.Kind.MOVED, kingTarget, king);
+		record(BoardDelta.Kind.CASTLING_ROOK, rookTarget, rook);
+	}
+
+	private void uncastle(Position source, Position target) {
+		invalidateMoves();
+		boolean kingside = target.getColumn() > source.getColumn();
+		int row = source.getRow();
+		ChessPiece king = (ChessPiece) board.removePiece(Position.of(row, castlingKingTarget(kingside)));
+		ChessPiece rook = (ChessPiece) board.removePiece(Position.of(row, castlingRookTarget(kingside)));
+		board.placePiece(king, source);
+		board.placePiece(rook, Position.of(row, getCastlingRookColumn(king.getColor(), kingside)));
+		king.decreaseMoveCount();
+		rook.decreaseMoveCount();
+	}
+
+	private void record(BoardDelta.Kind kind, Position position, ChessPiece piece) {
+		if (recordedChanges != null) {
+			recordedChanges.add(new BoardDelta.Change(kind, ChessPosition.fromPosition(position),
+					piece == null ? 0 : fenLetter(piece)));
+		}
+	}
+
+	/**
+	 * Hands the changes of a move to the listeners, on the listener executor.
+	 */
+	private void publish(List<BoardDelta.Change> changes) {
+		if (changes == null || boardListeners.isEmpty()) {
+			return;
+		}
+		BoardDelta delta = new BoardDelta(++deltaSequence, turn, currentPlayer, check, checkMate, changes);
+		Executor executor = listenerExecutor != null ? listenerExecutor : DefaultListenerExecutor.INSTANCE;
+		for (BoardListener listener : boardListeners) {
+			executor.execute(() -> listener.boardChanged(delta));
+		}
+	}
+
+	private void undoMove(Position source, Position target, Piece capturedPiece, boolean castling) {
+		if (castling) {
+			uncastle(source, target);
+			return;
+		}
+		invalidateMoves();
 		ChessPiece p = (ChessPiece) board.removePiece(target);
 		p.decreaseMoveCount();
 		board.placePiece(p, source);
 
 		if (capturedPiece != null) {
 			board.placePiece(capturedPiece, target);
-			capturedPieces.remove(capturedPiece);
-			piecesOntheBoard.add(capturedPiece);
-		}
-
-		// Undo castling (kingside)
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetT = new Position(target.getRow(), target.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-			board.placePiece(rook, sourceT);
-			rook.decreaseMoveCount();
-		}
-
-		// Undo castling (queenside)
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetT = new Position(target.getRow(), target.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-			board.placePiece(rook, sourceT);
-			rook.decreaseMoveCount();
+			// Moves are undone in reverse order, so the piece is usually the last one
+			int last = capturedPieces.size() - 1;
+			if (last >= 0 && capturedPieces.get(last) == capturedPiece) {
+				capturedPieces.remove(last);
+			} else {
+				capturedPieces.remove(capturedPiece);
+			}
+			piecesOntheBoard.add((ChessPiece) capturedPiece);
 		}
 
 		// Undo en passant
 		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == null) {
+			if (source.getColumn() != target.getColumn() && capturedPiece != null && capturedPiece == enPassant) {
 				ChessPiece pawn = (ChessPiece) board.removePiece(target);
 				Position pawnPosition;
 				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(3, target.getColumn());
+					pawnPosition = Position.of(3, target.getColumn());
 				} else {
-					pawnPosition = new Position(4, target.getColumn());
+					pawnPosition = Position.of(4, target.getColumn());
 				}
 				board.placePiece(pawn, pawnPosition);
 			}
@@ -301,26 +980,35 @@ public class ChessMatch {
 	}
 
 	private void validateSourcePosition(Position position) {
+		MoveRejection rejection = checkSourcePosition(position);
+		if (rejection != null) {
+			throw rejection.exception();
+		}
+	}
+
+	private MoveRejection checkSourcePosition(Position position) {
 		if (!board.thereIsAPiece(position)) {
-			throw new ChessException("There is no piece on the source position");
+			return MoveRejection.NO_PIECE;
 		}
 		boolean isYourPiece = (currentPlayer != ((ChessPiece) board.piece(position)).getColor());
 		if (isYourPiece) {
-			throw new ChessException("The chosen piece isn't yours");
+			return MoveRejection.NOT_YOUR_PIECE;
 		}
-		if (!board.piece(position).isthereAnyPossibleMove()) {
-			throw new ChessException("There are no possible moves for the chosen piece");
+		if (!hasAnyMove(cachedMoves(board.piece(position)).moves)) {
+			return MoveRejection.NO_POSSIBLE_MOVES;
 		}
+		return null;
 	}
 
-	private void validateTargetposition(Position source, Position target) {
-		if (!board.piece(source).possibleMovie(target)) {
-			throw new ChessException("The chosen piece can't move to the target position");
+	private MoveRejection checkTargetPosition(Position source, Position target) {
+		if (!cachedMoves(board.piece(source)).moves[target.getRow()][target.getColumn()]) {
+			return MoveRejection.ILLEGAL_TARGET;
 		}
+		return null;
 	}
 
 	private void placeNewPiece(char column, int row, ChessPiece piece) {
-		board.placePiece(piece, new ChessPosition(column, row).toPositioin());
+		board.placePiece(piece, ChessPosition.of(column, row).toPositioin());
 		piecesOntheBoard.add(piece);
 	}
 
@@ -329,47 +1017,132 @@ public class ChessMatch {
 	}
 
 	private ChessPiece king(Color color) {
-		List<Piece> list = piecesOntheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color)
-				.collect(Collectors.toList());
+		ChessPiece king = piecesOntheBoard.king(color);
+		if (king == null) {
+			throw new IllegalStateException("There is no " + color + " king on the board");
+		}
+		return king;
+	}
 
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece) p;
-			}
+	/**
+	 * Retrieves the move matrix of a piece in the current position, computing
+	 * it only once per position: entries are dropped whenever the board
+	 * changes, and king and pawn entries also when the check flag or the en
+	 * passant pawn they depend on changed.
+	 */
+	private CachedMoves cachedMoves(Piece piece) {
+		CachedMoves cached = moveCache.get(piece);
+		if (cached == null || piece instanceof King && cached.check != check
+				|| piece instanceof Pawn && cached.enPassant != enPassant) {
+			cached = new CachedMoves(possibleMovies(piece), check, enPassant);
+			moveCache.put(piece, cached);
 		}
-		throw new IllegalStateException("There is no " + color + " king on the board");
+		return cached;
 	}
 
-	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPositioin();
-		List<Piece> opponentPieces = piecesOntheBoard.stream()
-				.filter(x -> ((ChessPiece) x).getColor() == opponent(color)).collect(Collectors.toList());
-		for (Piece p : opponentPieces) {
-			boolean[][] mat = p.possibleMovies();
-			if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
+	private void invalidateMoves() {
+		attackMaps[0] = null;
+		attackMaps[1] = null;
+		// A fresh map rather than clear(), so a probe can restore the entries of
+		// the position it returns to
+		if (!moveCache.isEmpty()) {
+			moveCache = new IdentityHashMap<>();
+		}
+	}
+
+	/**
+	 * Checks that a possible move does not leave the mover's own king in check,
+	 * by trying it. The answer is remembered until the position changes, so
+	 * mate detection and the validation of the next move share it.
+	 */
+	private boolean isLegal(Piece piece, Position source, Position target) {
+		CachedMoves cached = cachedMoves(piece);
+		byte legality = cached.legality(target.getRow(), target.getColumn());
+		if (legality == CachedMoves.UNKNOWN) {
+			Color color = ((ChessPiece) piece).getColor();
+			Map<Piece, CachedMoves> saved = moveCache;
+			AttackMap whiteAttacks = attackMaps[0];
+			AttackMap blackAttacks = attackMaps[1];
+			boolean castling = isCastling(source, target);
+			Piece capturePiece = makeMove(source, target);
+			boolean inCheck = testCheck(color);
+			undoMove(source, target, capturePiece, castling);
+			moveCache = saved;
+			attackMaps[0] = whiteAttacks;
+			attackMaps[1] = blackAttacks;
+			legality = inCheck ? CachedMoves.ILLEGAL : CachedMoves.LEGAL;
+			cached.setLegality(target.getRow(), target.getColumn(), legality);
+		}
+		return legality == CachedMoves.LEGAL;
+	}
+
+	private static boolean hasAnyMove(boolean[][] mat) {
+		for (boolean[] row : mat) {
+			for (boolean move : row) {
+				if (move) {
+					return true;
+				}
 			}
 		}
 		return false;
 	}
 
+	private boolean[][] possibleMovies(Piece piece) {
+		if (!Metrics.ENABLED) {
+			return piece.possibleMovies();
+		}
+		long start = System.nanoTime();
+		try {
+			return piece.possibleMovies();
+		} finally {
+			Metrics.POSSIBLE_MOVIES.recordSince(start);
+		}
+	}
+
+	private boolean testCheck(Color color) {
+		if (!Metrics.ENABLED) {
+			return isInCheck(color);
+		}
+		long start = System.nanoTime();
+		try {
+			return isInCheck(color);
+		} finally {
+			Metrics.TEST_CHECK.recordSince(start);
+		}
+	}
+
+	private boolean isInCheck(Color color) {
+		Position kingPosition = king(color).getChessPosition().toPositioin();
+		return getAttackMap(opponent(color)).isAttacked(kingPosition.getRow(), kingPosition.getColumn());
+	}
+
 	private boolean testCheckMate(Color color) {
+		if (!Metrics.ENABLED) {
+			return isCheckMate(color);
+		}
+		long start = System.nanoTime();
+		try {
+			return isCheckMate(color);
+		} finally {
+			Metrics.TEST_CHECK_MATE.recordSince(start);
+		}
+	}
+
+	private boolean isCheckMate(Color color) {
 		if (!testCheck(color)) {
 			return false;
 		}
-		List<Piece> list = piecesOntheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color)
-				.collect(Collectors.toList());
-		for (Piece p : list) {
-			boolean[][] mat = p.possibleMovies();
-			for (int i = 0; i < board.getRows(); i++) {
-				for (int j = 0; j < board.getColumns(); j++) {
-					if (mat[i][j]) {
-						Position source = ((ChessPiece) p).getChessPosition().toPositioin();
-						Position target = new Position(i, j);
-						Piece capturePiece = makeMove(source, target);
-						boolean inCheck = testCheck(color);
-						undoMove(source, target, capturePiece);
-						if (!inCheck) {
+		// Trying a move only captures and restores opponent pieces, so the
+		// groups of this color stay put while they are iterated
+		int first = PieceList.firstGroup(color);
+		for (int group = first; group < first + PieceList.TYPES; group++) {
+			for (int k = 0; k < piecesOntheBoard.count(group); k++) {
+				ChessPiece p = piecesOntheBoard.get(group, k);
+				boolean[][] mat = cachedMoves(p).moves;
+				Position source = p.getChessPosition().toPositioin();
+				for (int i = 0; i < board.getRows(); i++) {
+					for (int j = 0; j < board.getColumns(); j++) {
+						if (mat[i][j] && isLegal(p, source, Position.of(i, j))) {
 							return false;
 						}
 					}
@@ -423,4 +1196,254 @@ public class ChessMatch {
 		placeNewPiece('g', 7, new Pawn(board, Color.BLACK, this));
 		placeNewPiece('h', 7, new Pawn(board, Color.BLACK, this));
 	}
+
+	/**
+	 * Retrieves the current position in Forsyth-Edwards Notation. Castling
+	 * rights are derived from the move counts of kings and rooks, and written as
+	 * rook file letters (Shredder-FEN) in a Chess960 match; the halfmove clock
+	 * is not tracked and always written as 0.
+	 *
+	 * @return The FEN string of the current position.
+	 */
+	public String toFen() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			int empty = 0;
+			for (int j = 0; j < 8; j++) {
+				ChessPiece p = (ChessPiece) board.piece(i, j);
+				if (p == null) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				sb.append(fenLetter(p));
+			}
+			if (empty > 0) {
+				sb.append(empty);
+			}
+			if (i < 7) {
+				sb.append('/');
+			}
+		}
+		sb.append(currentPlayer == Color.WHITE ? " w " : " b ");
+
+		int length = sb.length();
+		appendCastlingRight(sb, Color.WHITE, true);
+		appendCastlingRight(sb, Color.WHITE, false);
+		appendCastlingRight(sb, Color.BLACK, true);
+		appendCastlingRight(sb, Color.BLACK, false);
+		if (sb.length() == length) {
+			sb.append('-');
+		}
+
+		if (enPassant != null) {
+			Position pos = enPassant.getChessPosition().toPositioin();
+			int row = enPassant.getColor() == Color.WHITE ? pos.getRow() + 1 : pos.getRow() - 1;
+			sb.append(' ').append(ChessPosition.fromPosition(Position.of(row, pos.getColumn())));
+		} else {
+			sb.append(" -");
+		}
+		sb.append(" 0 ").append((turn + 1) / 2);
+		return sb.toString();
+	}
+
+	/**
+	 * Overrides the turn counter and the check flags after a FEN load, for
+	 * states FEN cannot express (a finished match keeps the winner as current
+	 * player).
+	 */
+	void restoreState(int turn, boolean check, boolean checkMate) {
+		this.turn = turn;
+		this.check = check;
+		this.checkMate = checkMate;
+	}
+
+	private void appendCastlingRight(StringBuilder sb, Color color, boolean kingside) {
+		if (hasCastlingRight(color, kingside)) {
+			char c = chess960 ? (char) ('A' + getCastlingRookColumn(color, kingside)) : kingside ? 'K' : 'Q';
+			sb.append(color == Color.WHITE ? c : Character.toLowerCase(c));
+		}
+	}
+
+	private static char fenLetter(ChessPiece p) {
+		char c;
+		if (p instanceof Pawn) {
+			c = 'p';
+		} else if (p instanceof Knight) {
+			c = 'n';
+		} else if (p instanceof Bishop) {
+			c = 'b';
+		} else if (p instanceof Rook) {
+			c = 'r';
+		} else if (p instanceof Queen) {
+			c = 'q';
+		} else {
+			c = 'k';
+		}
+		return p.getColor() == Color.WHITE ? Character.toUpperCase(c) : c;
+	}
+
+	/**
+	 * Sets up the board and game state from a FEN string. Pieces that lost their
+	 * castling rights and pawns off their starting rank are marked as moved.
+	 * Castling rights are read as KQkq, meaning the outermost rook on each side
+	 * of the king (X-FEN), or as rook file letters (Shredder-FEN).
+	 */
+	private void loadFen(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		String[] ranks = fields[0].split("/");
+		if (fields.length < 2 || ranks.length != 8) {
+			throw new ChessException("Invalid FEN: " + fen);
+		}
+		for (int i = 0; i < 8; i++) {
+			int j = 0;
+			for (char c : ranks[i].toCharArray()) {
+				if (Character.isDigit(c)) {
+					j += c - '0';
+					continue;
+				}
+				if (j >= 8) {
+					throw new ChessException("Invalid FEN: " + fen);
+				}
+				ChessPiece piece = fenPiece(c);
+				if (piece == null) {
+					throw new ChessException("Invalid FEN piece '" + c + "': " + fen);
+				}
+				board.placePiece(piece, Position.of(i, j));
+				piecesOntheBoard.add(piece);
+				j++;
+			}
+		}
+
+		currentPlayer = fields[1].equals("b") ? Color.BLACK : Color.WHITE;
+		String castling = fields.length > 2 ? fields[2] : "-";
+		loadCastlingRights(castling, fen);
+		for (int group = 0; group < PieceList.GROUPS; group++) {
+			for (int k = 0; k < piecesOntheBoard.count(group); k++) {
+				ChessPiece cp = piecesOntheBoard.get(group, k);
+				Position pos = cp.getChessPosition().toPositioin();
+				int homeRow = cp.getColor() == Color.WHITE ? 7 : 0;
+				boolean white = cp.getColor() == Color.WHITE;
+				boolean unmoved;
+				if (cp instanceof Pawn) {
+					unmoved = pos.getRow() == (white ? 6 : 1);
+				} else if (cp instanceof King) {
+					unmoved = getCastlingRookColumn(cp.getColor(), true) >= 0
+							|| getCastlingRookColumn(cp.getColor(), false) >= 0;
+				} else if (cp instanceof Rook) {
+					unmoved = pos.getRow() == homeRow && (pos.getColumn() == getCastlingRookColumn(cp.getColor(), true)
+							|| pos.getColumn() == getCastlingRookColumn(cp.getColor(), false));
+				} else {
+					unmoved = true;
+				}
+				if (!unmoved) {
+					cp.increaseMoveCount();
+				}
+			}
+		}
+
+		enPassant = null;
+		if (fields.length > 3 && !fields[3].equals("-")) {
+			Position square = ChessPosition.of(fields[3].charAt(0), fields[3].charAt(1) - '0').toPositioin();
+			int pawnRow = square.getRow() == 5 ? 4 : 3;
+			enPassant = (ChessPiece) board.piece(pawnRow, square.getColumn());
+		}
+
+		int fullmove = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+		turn = 2 * (fullmove - 1) + (currentPlayer == Color.WHITE ? 1 : 2);
+		promoted = null;
+		check = testCheck(currentPlayer);
+		checkMate = testCheckMate(currentPlayer);
+	}
+
+	/**
+	 * Sets the castling rook columns from the castling field of a FEN string.
+	 * The match plays by Chess960 rules when the rights are given as files or
+	 * a king or castling rook is off its standard square.
+	 */
+	private void loadCastlingRights(String castling, String fen) {
+		castlingColumns = new int[] { -1, -1, -1, -1 };
+		chess960 = false;
+		if (castling.equals("-")) {
+			return;
+		}
+		for (char c : castling.toCharArray()) {
+			Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+			char letter = Character.toUpperCase(c);
+			if (letter != 'K' && letter != 'Q' && (letter < 'A' || letter > 'H')) {
+				throw new ChessException("Invalid FEN castling '" + c + "': " + fen);
+			}
+			int row = color == Color.WHITE ? 7 : 0;
+			ChessPiece king = piecesOntheBoard.king(color);
+			if (king == null || king.getChessPosition().toPositioin().getRow() != row) {
+				continue;
+			}
+			int kingColumn = king.getChessPosition().toPositioin().getColumn();
+			int column = -1;
+			if (letter == 'K') {
+				for (int j = 7; j > kingColumn && column < 0; j--) {
+					column = isRook(row, j, color) ? j : -1;
+				}
+			} else if (letter == 'Q') {
+				for (int j = 0; j < kingColumn && column < 0; j++) {
+					column = isRook(row, j, color) ? j : -1;
+				}
+			} else {
+				chess960 = true;
+				column = letter - 'A';
+				if (column == kingColumn || !isRook(row, column, color)) {
+					continue;
+				}
+			}
+			if (column < 0) {
+				continue;
+			}
+			boolean kingside = column > kingColumn;
+			castlingColumns[castlingIndex(color, kingside)] = column;
+			if (kingColumn != 4 || column != (kingside ? 7 : 0)) {
+				chess960 = true;
+			}
+		}
+	}
+
+	private boolean isRook(int row, int column, Color color) {
+		Piece p = board.piece(row, column);
+		return p instanceof Rook && ((ChessPiece) p).getColor() == color;
+	}
+
+	ChessPiece fenPiece(char c) {
+		Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+		ChessPiece spare = sparePiece(Character.toUpperCase(c), color);
+		if (spare != null) {
+			return spare;
+		}
+		switch (Character.toUpperCase(c)) {
+		case 'P':
+			return new Pawn(board, color, this);
+		case 'K':
+			return new King(board, color, this);
+		case 'B':
+		case 'N':
+		case 'R':
+		case 'Q':
+			return newPiece(String.valueOf(Character.toUpperCase(c)), color);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Takes a piece left over from a previous game of this match.
+	 *
+	 * @param letter The upper case FEN letter of the piece type.
+	 * @param color  The color of the piece.
+	 * @return The piece, or null if there is none to reuse.
+	 */
+	private ChessPiece sparePiece(char letter, Color color) {
+		int type = PieceList.type(letter);
+		return type < 0 ? null : sparePieces.take(PieceList.firstGroup(color) + type);
+	}
 }
@@ -12,6 +12,12 @@ public abstract class ChessPiece extends Piece {
 	private Color color;
 	private int moveCount;
 
+	/**
+	 * Index of the piece in its {@link PieceList} group, or -1 when it is not
+	 * on the board.
+	 */
+	int slot = -1;
+
 	/**
 	 * Constructs a chess piece with a board and color.
 	 *
@@ -55,6 +61,13 @@ public abstract class ChessPiece extends Piece {
 		moveCount--;
 	}
 
+	/**
+	 * Sets the move count back to zero when a reset match reuses the piece.
+	 */
+	void resetMoveCount() {
+		moveCount = 0;
+	}
+
 	/**
 	 * Checks if there is an opponent's piece at a given position.
 	 *
@@ -5,11 +5,21 @@ import chess.exception.ChessException;
 
 /**
  * Representa uma posição no jogo de xadrez com colunas ('a' a 'h') e linhas (1 a 8).
+ * A classe é imutável; as 64 casas obtidas por {@link #of(char, int)} são
+ * compartilhadas, de modo que conversões no caminho crítico não alocam objetos.
  */
 public class ChessPosition {
 
-    private char columns;
-    private int rows;
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int i = 0; i < SQUARES.length; i++) {
+            SQUARES[i] = new ChessPosition((char) ('a' + i % 8), 8 - i / 8);
+        }
+    }
+
+    private final char columns;
+    private final int rows;
     
     /**
      * Constrói uma posição de xadrez com coluna e linha especificadas.
@@ -26,6 +36,21 @@ public class ChessPosition {
         this.rows = rows;
     }
 
+    /**
+     * Obtém a instância compartilhada de uma casa.
+     * 
+     * @param columns A coluna ('a' a 'h').
+     * @param rows A linha (1 a 8).
+     * @return A posição compartilhada.
+     * @throws ChessException Se os valores de coluna ou linha estiverem fora do intervalo válido.
+     */
+    public static ChessPosition of(char columns, int rows) {
+        if(columns < 'a' || columns > 'h' || rows < 1 || rows > 8) {
+            throw new ChessException("Erro ao instanciar ChessPosition. Valores válidos são de 'a1' a 'h8'");
+        }
+        return SQUARES[(8 - rows) * 8 + columns - 'a'];
+    }
+
     /**
      * Obtém a coluna da posição de xadrez.
      * 
@@ -47,22 +72,25 @@ public class ChessPosition {
     /**
      * Converte a posição de xadrez para uma posição padrão de tabuleiro.
      * 
-     * @return O objeto Position correspondente em um tabuleiro padrão.
+     * @return O objeto Position compartilhado correspondente em um tabuleiro padrão.
      */
     protected Position toPositioin() {
-        return new Position(8 - rows, columns - 'a');
+        return Position.of(8 - rows, columns - 'a');
     }
     
     /**
      * Converte um objeto Position para um ChessPosition.
      * 
      * @param position O objeto Position a ser convertido.
-     * @return O objeto ChessPosition correspondente.
+     * @return O objeto ChessPosition compartilhado correspondente.
      */
     protected static ChessPosition fromPosition(Position position) {
-        char col = (char)('a' + position.getColumn());
-        char row = (char)(8 - position.getRow());
-        return new ChessPosition(col, row);
+        int row = position.getRow();
+        int column = position.getColumn();
+        if (row < 0 || row > 7 || column < 0 || column > 7) {
+            throw new ChessException("Erro ao instanciar ChessPosition. Valores válidos são de 'a1' a 'h8'");
+        }
+        return SQUARES[row * 8 + column];
     }
 
     /**
@@ -0,0 +1,355 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import boardgame.Position;
+import chess.pieces.Bishop;
+import chess.pieces.King;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+import chess.pieces.Queen;
+import chess.pieces.Rook;
+
+/**
+ * Packed, immutable form of a chess match for matches that sit idle: at most
+ * 28 bytes of position plus 2 bytes per move of history and half a byte per
+ * captured piece, instead of a board, piece objects and lists.
+ *
+ * Position layout: an 8-byte occupancy mask (bit row * 8 + column), one 4-bit
+ * piece code per occupied square in square order (bit 3 set for white, bits
+ * 0-2 the piece type from 1 pawn to 6 king), a flags byte (bit 0 white to
+ * move, bits 1-4 castling rights KQkq, bit 5 check, bit 6 checkmate, bit 7
+ * Chess960), the en passant file plus one (0 for none) and the turn as two
+ * bytes. A Chess960 match adds two bytes with the castling rook columns, one
+ * nibble each in KQkq order.
+ */
+public final class CompactMatch {
+
+	private static final String TYPES = " PNBRQK";
+
+	private final byte[] position;
+	private final byte[] captured;
+	private final short[] history;
+
+	private CompactMatch(byte[] position, byte[] captured, short[] history) {
+		this.position = position;
+		this.captured = captured;
+		this.history = history;
+	}
+
+	/**
+	 * Packs a chess match.
+	 *
+	 * @param match    The chess match.
+	 * @param captured The pieces captured so far, may be empty.
+	 * @param history  The moves played so far, encoded with
+	 *                 {@link #encodeMove(ChessPosition, ChessPosition, String)}.
+	 * @return The packed match.
+	 */
+	public static CompactMatch of(ChessMatch match, List<ChessPiece> captured, short[] history) {
+		long occupancy = 0;
+		int count = 0;
+		byte[] codes = new byte[32];
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 8; column++) {
+				ChessPiece p = match.getPiece(row, column);
+				if (p != null) {
+					occupancy |= 1L << (row * 8 + column);
+					codes[count++] = code(p);
+				}
+			}
+		}
+
+		byte[] position = new byte[8 + (count + 1) / 2 + (match.isChess960() ? 6 : 4)];
+		for (int i = 0; i < 8; i++) {
+			position[i] = (byte) (occupancy >>> (8 * i));
+		}
+		for (int i = 0; i < count; i++) {
+			position[8 + i / 2] |= (byte) (i % 2 == 0 ? codes[i] : codes[i] << 4);
+		}
+
+		int state = 8 + (count + 1) / 2;
+		int flags = match.getCurrentPlayer() == Color.WHITE ? 1 : 0;
+		flags |= match.hasCastlingRight(Color.WHITE, true) ? 2 : 0;
+		flags |= match.hasCastlingRight(Color.WHITE, false) ? 4 : 0;
+		flags |= match.hasCastlingRight(Color.BLACK, true) ? 8 : 0;
+		flags |= match.hasCastlingRight(Color.BLACK, false) ? 16 : 0;
+		flags |= match.getCheck() ? 32 : 0;
+		flags |= match.getCheckMate() ? 64 : 0;
+		flags |= match.isChess960() ? 128 : 0;
+		position[state] = (byte) flags;
+		position[state + 1] = (byte) (match.getEnPassant() == null ? 0
+				: match.getEnPassant().getChessPosition().getColumns() - 'a' + 1);
+		position[state + 2] = (byte) (match.getTurn() >>> 8);
+		position[state + 3] = (byte) match.getTurn();
+		if (match.isChess960()) {
+			position[state + 4] = (byte) ((match.getCastlingRookColumn(Color.WHITE, true) & 0xF)
+					| match.getCastlingRookColumn(Color.WHITE, false) << 4);
+			position[state + 5] = (byte) ((match.getCastlingRookColumn(Color.BLACK, true) & 0xF)
+					| match.getCastlingRookColumn(Color.BLACK, false) << 4);
+		}
+
+		byte[] packedCaptured = new byte[(captured.size() + 1) / 2];
+		for (int i = 0; i < captured.size(); i++) {
+			int code = code(captured.get(i));
+			packedCaptured[i / 2] |= (byte) (i % 2 == 0 ? code : code << 4);
+		}
+		return new CompactMatch(position, packedCaptured, history.clone());
+	}
+
+	/**
+	 * Encodes a move of the history in 16 bits: source square, target square
+	 * (row * 8 + column, 6 bits each) and promotion type.
+	 *
+	 * @param source    The source position.
+	 * @param target    The target position.
+	 * @param promotion The promotion piece type ("B", "N", "R", "Q") or null.
+	 * @return The encoded move.
+	 */
+	public static short encodeMove(ChessPosition source, ChessPosition target, String promotion) {
+		Position s = source.toPositioin();
+		Position t = target.toPositioin();
+		int type = promotion == null ? 0 : Math.max(0, TYPES.indexOf(promotion.charAt(0)));
+		return (short) ((s.getRow() * 8 + s.getColumn()) | (t.getRow() * 8 + t.getColumn()) << 6 | type << 12);
+	}
+
+	/**
+	 * Decodes a move of the history into "e2e4" or "e7e8Q" form.
+	 *
+	 * @param move The encoded move.
+	 * @return The move text.
+	 */
+	public static String decodeMove(short move) {
+		int source = move & 0x3F;
+		int target = (move >>> 6) & 0x3F;
+		int type = (move >>> 12) & 0x7;
+		return "" + ChessPosition.fromPosition(Position.of(source / 8, source % 8))
+				+ ChessPosition.fromPosition(Position.of(target / 8, target % 8))
+				+ (type == 0 ? "" : String.valueOf(TYPES.charAt(type)));
+	}
+
+	/**
+	 * Rebuilds a full chess match from the packed form.
+	 *
+	 * @return A new chess match in the packed state.
+	 */
+	public ChessMatch inflate() {
+		ChessMatch match = new ChessMatch(toFen());
+		match.restoreState(getTurn(), getCheck(), getCheckMate());
+		return match;
+	}
+
+	/**
+	 * Unpacks the position in Forsyth-Edwards Notation, for instance to load
+	 * it into an existing match with {@link ChessMatch#load(String)}. The turn
+	 * number is not part of it.
+	 *
+	 * @return The FEN string, with halfmove clock 0 and fullmove number 1.
+	 */
+	public String toFen() {
+		char[] cells = toBoard();
+		StringBuilder fen = new StringBuilder();
+		for (int row = 0; row < 8; row++) {
+			int empty = 0;
+			for (int column = 0; column < 8; column++) {
+				char piece = cells[row * 8 + column];
+				if (piece == 0) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					fen.append(empty);
+					empty = 0;
+				}
+				fen.append(piece);
+			}
+			if (empty > 0) {
+				fen.append(empty);
+			}
+			if (row < 7) {
+				fen.append('/');
+			}
+		}
+
+		int state = stateOffset();
+		int flags = position[state];
+		boolean white = (flags & 1) != 0;
+		fen.append(white ? " w " : " b ");
+		String castling = "";
+		for (int i = 0; i < 4; i++) {
+			if ((flags & 2 << i) != 0) {
+				char letter = (flags & 128) != 0 ? (char) ('A' + (position[state + 4 + i / 2] >>> (i % 2 * 4) & 0xF))
+						: "KQ".charAt(i % 2);
+				castling += i < 2 ? letter : Character.toLowerCase(letter);
+			}
+		}
+		fen.append(castling.isEmpty() ? "-" : castling);
+		int enPassantFile = position[state + 1];
+		fen.append(enPassantFile == 0 ? " -" : " " + (char) ('a' + enPassantFile - 1) + (white ? 6 : 3));
+		fen.append(" 0 1");
+		return fen.toString();
+	}
+
+	/**
+	 * Unpacks the board, without building a chess match.
+	 *
+	 * @return The 64 squares, index row * 8 + column, holding the FEN letter of
+	 *         their piece (upper case for white) or 0 when empty.
+	 */
+	public char[] toBoard() {
+		long occupancy = occupancy();
+		char[] cells = new char[64];
+		int index = 0;
+		for (int square = 0; square < 64; square++) {
+			if ((occupancy & 1L << square) != 0) {
+				int code = (position[8 + index / 2] >>> (index % 2 == 0 ? 0 : 4)) & 0xF;
+				char letter = TYPES.charAt(code & 0x7);
+				cells[square] = (code & 0x8) != 0 ? letter : Character.toLowerCase(letter);
+				index++;
+			}
+		}
+		return cells;
+	}
+
+	public int getTurn() {
+		int state = stateOffset();
+		return (position[state + 2] & 0xFF) << 8 | position[state + 3] & 0xFF;
+	}
+
+	public Color getCurrentPlayer() {
+		return (position[stateOffset()] & 1) != 0 ? Color.WHITE : Color.BLACK;
+	}
+
+	public boolean getCheck() {
+		return (position[stateOffset()] & 32) != 0;
+	}
+
+	public boolean getCheckMate() {
+		return (position[stateOffset()] & 64) != 0;
+	}
+
+	/**
+	 * Recreates the captured pieces, attached to the board of a match.
+	 *
+	 * @param match The inflated chess match.
+	 * @return The captured pieces in capture order.
+	 */
+	public List<ChessPiece> capturedPieces(ChessMatch match) {
+		List<ChessPiece> pieces = new ArrayList<>();
+		for (int i = 0; i < captured.length * 2; i++) {
+			int code = (captured[i / 2] >>> (i % 2 == 0 ? 0 : 4)) & 0xF;
+			if (code != 0) {
+				char letter = TYPES.charAt(code & 0x7);
+				pieces.add(match.fenPiece((code & 0x8) != 0 ? letter : Character.toLowerCase(letter)));
+			}
+		}
+		return pieces;
+	}
+
+	/**
+	 * Retrieves the moves played so far.
+	 *
+	 * @return A copy of the encoded move history.
+	 */
+	public short[] getHistory() {
+		return history.clone();
+	}
+
+	/**
+	 * Writes the packed match as bytes, for persistence.
+	 *
+	 * @return The serialized form, readable with {@link #read(ByteBuffer)}.
+	 */
+	public byte[] toByteArray() {
+		ByteBuffer buffer = ByteBuffer.allocate(2 + position.length + captured.length + 4 + history.length * 2);
+		buffer.put((byte) position.length).put(position);
+		buffer.put((byte) captured.length).put(captured);
+		buffer.putInt(history.length);
+		for (short move : history) {
+			buffer.putShort(move);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Reads a packed match written by {@link #toByteArray()}.
+	 *
+	 * @param buffer The buffer, positioned at the start of the packed match and
+	 *               advanced past it.
+	 * @return The packed match.
+	 */
+	public static CompactMatch read(ByteBuffer buffer) {
+		byte[] position = new byte[buffer.get()];
+		buffer.get(position);
+		byte[] captured = new byte[buffer.get()];
+		buffer.get(captured);
+		short[] history = new short[buffer.getInt()];
+		for (int i = 0; i < history.length; i++) {
+			history[i] = buffer.getShort();
+		}
+		return new CompactMatch(position, captured, history);
+	}
+
+	/**
+	 * Retrieves the number of moves in the history.
+	 *
+	 * @return The number of moves.
+	 */
+	public int getHistorySize() {
+		return history.length;
+	}
+
+	/**
+	 * Retrieves the heap footprint of the packed data, object headers included.
+	 *
+	 * @return The size in bytes.
+	 */
+	public int sizeInBytes() {
+		return 16 + 3 * 16 + position.length + captured.length + history.length * 2;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof CompactMatch && Arrays.equals(position, ((CompactMatch) o).position);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(position);
+	}
+
+	private long occupancy() {
+		long occupancy = 0;
+		for (int i = 0; i < 8; i++) {
+			occupancy |= (position[i] & 0xFFL) << (8 * i);
+		}
+		return occupancy;
+	}
+
+	private int stateOffset() {
+		return 8 + (Long.bitCount(occupancy()) + 1) / 2;
+	}
+
+	private static byte code(ChessPiece p) {
+		int type;
+		if (p instanceof Pawn) {
+			type = 1;
+		} else if (p instanceof Knight) {
+			type = 2;
+		} else if (p instanceof Bishop) {
+			type = 3;
+		} else if (p instanceof Rook) {
+			type = 4;
+		} else if (p instanceof Queen) {
+			type = 5;
+		} else if (p instanceof King) {
+			type = 6;
+		} else {
+			type = 0;
+		}
+		return (byte) (p.getColor() == Color.WHITE ? type | 8 : type);
+	}
+}
@@ -0,0 +1,50 @@
+package chess;
+
+import boardgame.Piece;
+import boardgame.Position;
+
+/**
+ * Holds what {@link ChessMatch#takeback()} and {@link ChessMatch#redo()} need
+ * to step over one played move in constant time: the move, the captured piece
+ * and promotion, and the match state before and after it. Move counts, castling
+ * rooks and en passant captures are restored by the move itself.
+ */
+class HistoryRecord {
+
+	final Position source;
+	final Position target;
+	final Piece captured;
+	final boolean castling;
+	final ChessPiece previousEnPassant;
+	final ChessPiece previousPromoted;
+	final boolean previousCheck;
+	final boolean previousCheckMate;
+	final int previousTurn;
+	final Color previousPlayer;
+	ChessPiece promotedPawn;
+	String promotionType;
+	ChessPiece enPassant;
+	boolean check;
+	boolean checkMate;
+	int turn;
+	Color currentPlayer;
+
+	/**
+	 * Constructs a record for a move just played, with the state that
+	 * preceded it; the state after the move is filled in by the match.
+	 */
+	HistoryRecord(Position source, Position target, Piece captured, boolean castling,
+			ChessPiece previousEnPassant, ChessPiece previousPromoted, boolean previousCheck,
+			boolean previousCheckMate, int previousTurn, Color previousPlayer) {
+		this.source = source;
+		this.target = target;
+		this.captured = captured;
+		this.castling = castling;
+		this.previousEnPassant = previousEnPassant;
+		this.previousPromoted = previousPromoted;
+		this.previousCheck = previousCheck;
+		this.previousCheckMate = previousCheckMate;
+		this.previousTurn = previousTurn;
+		this.previousPlayer = previousPlayer;
+	}
+}
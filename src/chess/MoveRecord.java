@@ -0,0 +1,38 @@
+package chess;
+
+import boardgame.Piece;
+import boardgame.Position;
+
+/**
+ * Holds the state needed to take back a move played through
+ * {@link ChessMatch#searchMove(Position, Position, String)}.
+ */
+class MoveRecord {
+
+	final Position source;
+	final Position target;
+	final ChessPiece previousEnPassant;
+	final ChessPiece previousPromoted;
+	final boolean previousCheck;
+	Piece captured;
+	boolean castling;
+	ChessPiece promotedPawn;
+
+	/**
+	 * Constructs a record for a move about to be played.
+	 *
+	 * @param source            The source position of the move.
+	 * @param target            The target position of the move.
+	 * @param previousEnPassant The en passant pawn before the move.
+	 * @param previousPromoted  The promoted piece before the move.
+	 * @param previousCheck     The check flag before the move.
+	 */
+	MoveRecord(Position source, Position target, ChessPiece previousEnPassant, ChessPiece previousPromoted,
+			boolean previousCheck) {
+		this.source = source;
+		this.target = target;
+		this.previousEnPassant = previousEnPassant;
+		this.previousPromoted = previousPromoted;
+		this.previousCheck = previousCheck;
+	}
+}
@@ -0,0 +1,39 @@
+package chess;
+
+import chess.exception.ChessException;
+
+/**
+ * Why a move was rejected by {@link ChessMatch#tryChessMove(ChessPosition, ChessPosition)}.
+ * Each reason carries one preallocated {@link ChessException} without stack
+ * trace, thrown by {@link ChessMatch#performChessMove(ChessPosition, ChessPosition)}
+ * so that rejecting a move costs no allocation either way.
+ */
+public enum MoveRejection {
+
+	NO_PIECE("There is no piece on the source position"),
+	NOT_YOUR_PIECE("The chosen piece isn't yours"),
+	NO_POSSIBLE_MOVES("There are no possible moves for the chosen piece"),
+	ILLEGAL_TARGET("The chosen piece can't move to the target position"),
+	SELF_CHECK("You can't put yourself in check");
+
+	private final String message;
+	private final ChessException exception;
+
+	MoveRejection(String message) {
+		this.message = message;
+		this.exception = ChessException.stackless(message);
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Retrieves the shared exception for this reason.
+	 *
+	 * @return The stackless exception.
+	 */
+	public ChessException exception() {
+		return exception;
+	}
+}
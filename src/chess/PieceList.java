@@ -0,0 +1,160 @@
+package chess;
+
+import java.util.Arrays;
+
+import chess.pieces.Bishop;
+import chess.pieces.King;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+import chess.pieces.Queen;
+
+/**
+ * The pieces on the board of a {@link ChessMatch}, in one group per color and
+ * type. Each piece remembers its slot in its group, so a piece is removed in
+ * constant time by moving the last piece of the group into its slot. Groups
+ * are iterated by index without allocating; the order within a group changes
+ * when a piece is removed.
+ */
+class PieceList {
+
+	static final int PAWN = 0;
+	static final int KNIGHT = 1;
+	static final int BISHOP = 2;
+	static final int ROOK = 3;
+	static final int QUEEN = 4;
+	static final int KING = 5;
+	static final int TYPES = 6;
+	static final int GROUPS = 2 * TYPES;
+
+	private final ChessPiece[][] groups = new ChessPiece[GROUPS][8];
+	private final int[] counts = new int[GROUPS];
+	private int size;
+
+	/**
+	 * Retrieves the first group of a color; its groups are this one and the
+	 * next {@link #TYPES} - 1, in type order.
+	 *
+	 * @param color The color.
+	 * @return The group index.
+	 */
+	static int firstGroup(Color color) {
+		return color == Color.WHITE ? 0 : TYPES;
+	}
+
+	static int type(ChessPiece piece) {
+		if (piece instanceof Pawn) {
+			return PAWN;
+		}
+		if (piece instanceof Knight) {
+			return KNIGHT;
+		}
+		if (piece instanceof Bishop) {
+			return BISHOP;
+		}
+		if (piece instanceof Queen) {
+			return QUEEN;
+		}
+		if (piece instanceof King) {
+			return KING;
+		}
+		return ROOK;
+	}
+
+	/**
+	 * Retrieves the type of an upper case FEN letter.
+	 *
+	 * @param letter The letter, e.g. 'N'.
+	 * @return The type, or -1 for a letter that is no piece.
+	 */
+	static int type(char letter) {
+		switch (letter) {
+		case 'P':
+			return PAWN;
+		case 'N':
+			return KNIGHT;
+		case 'B':
+			return BISHOP;
+		case 'R':
+			return ROOK;
+		case 'Q':
+			return QUEEN;
+		case 'K':
+			return KING;
+		default:
+			return -1;
+		}
+	}
+
+	static int group(ChessPiece piece) {
+		return firstGroup(piece.getColor()) + type(piece);
+	}
+
+	void add(ChessPiece piece) {
+		int group = group(piece);
+		int count = counts[group];
+		if (count == groups[group].length) {
+			groups[group] = Arrays.copyOf(groups[group], count * 2);
+		}
+		groups[group][count] = piece;
+		piece.slot = count;
+		counts[group] = count + 1;
+		size++;
+	}
+
+	/**
+	 * Removes a piece, doing nothing if it is not in the list.
+	 *
+	 * @param piece The piece to remove.
+	 */
+	void remove(ChessPiece piece) {
+		int group = group(piece);
+		int slot = piece.slot;
+		if (slot < 0 || slot >= counts[group] || groups[group][slot] != piece) {
+			return;
+		}
+		int last = --counts[group];
+		ChessPiece moved = groups[group][last];
+		groups[group][slot] = moved;
+		moved.slot = slot;
+		groups[group][last] = null;
+		piece.slot = -1;
+		size--;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int count(int group) {
+		return counts[group];
+	}
+
+	ChessPiece get(int group, int index) {
+		return groups[group][index];
+	}
+
+	/**
+	 * Removes all pieces, keeping the group arrays.
+	 */
+	void clear() {
+		for (int group = 0; group < GROUPS; group++) {
+			for (int k = 0; k < counts[group]; k++) {
+				groups[group][k].slot = -1;
+				groups[group][k] = null;
+			}
+			counts[group] = 0;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Retrieves the king of a color.
+	 *
+	 * @param color The color.
+	 * @return The king, or null if there is none.
+	 */
+	ChessPiece king(Color color) {
+		int group = firstGroup(color) + KING;
+		return counts[group] == 0 ? null : groups[group][0];
+	}
+}
@@ -0,0 +1,49 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Pieces of a {@link ChessMatch} that left the game when the match was reset,
+ * kept by color and type in the groups of {@link PieceList} so the next
+ * position set up on the same board takes them instead of allocating new
+ * ones.
+ */
+class PiecePool {
+
+	private final ChessPiece[][] groups = new ChessPiece[PieceList.GROUPS][8];
+	private final int[] counts = new int[PieceList.GROUPS];
+
+	/**
+	 * Returns a piece to the pool.
+	 *
+	 * @param piece A piece that is neither on the board nor referenced by the
+	 *              match any more.
+	 */
+	void release(ChessPiece piece) {
+		int group = PieceList.group(piece);
+		int count = counts[group];
+		if (count == groups[group].length) {
+			groups[group] = Arrays.copyOf(groups[group], count * 2);
+		}
+		groups[group][count] = piece;
+		counts[group] = count + 1;
+	}
+
+	/**
+	 * Takes a piece out of the pool, with its move count back at zero.
+	 *
+	 * @param group The color and type group, see {@link PieceList}.
+	 * @return The piece, or null if the pool has none of that group.
+	 */
+	ChessPiece take(int group) {
+		int count = counts[group];
+		if (count == 0) {
+			return null;
+		}
+		ChessPiece piece = groups[group][--count];
+		groups[group][count] = null;
+		counts[group] = count;
+		piece.resetMoveCount();
+		return piece;
+	}
+}
@@ -0,0 +1,362 @@
+package chess.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import chess.ChessMatch;
+
+/**
+ * Scores a file of positions, one FEN per line, with fixed-depth or fixed-node
+ * searches. Positions are streamed from the input to a pool of workers, each
+ * with its own engine and transposition table so nothing is shared between
+ * threads; the table is cleared before every position so results do not
+ * depend on scheduling. Results are written in input order as tab separated
+ * lines:
+ *
+ * <pre>
+ * fen	bestmove	score	depth	nodes
+ * fen	error	message
+ * </pre>
+ *
+ * The number of positions read but not yet written is bounded, so a slow
+ * position or a slow disk holds the reader back instead of filling memory.
+ * Every thousand positions by default the output is forced to disk and a
+ * checkpoint file records how much input and output is done; a run
+ * interrupted by a crash or {@link #stop()} resumes from there. Blank lines
+ * and lines starting with # are skipped.
+ */
+public class BatchAnalyzer {
+
+	public static final int DEFAULT_CAPACITY = 256;
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 1_000;
+
+	private static final Task END = new Task(-1, -1, null);
+
+	private final int workers;
+	private final int depth;
+	private final long nodeLimit;
+	private final int hashMegabytes;
+	private int capacity = DEFAULT_CAPACITY;
+	private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+	private LongConsumer progress;
+	private final List<Engine> engines = new ArrayList<>();
+	private volatile boolean stopped;
+
+	private static final class Task {
+		final long sequence;
+		final long line;
+		final String fen;
+
+		Task(long sequence, long line, String fen) {
+			this.sequence = sequence;
+			this.line = line;
+			this.fen = fen;
+		}
+	}
+
+	/**
+	 * Constructs an analyzer.
+	 *
+	 * @param workers       The number of positions searched at once.
+	 * @param depth         The search depth in plies.
+	 * @param nodeLimit     The node limit per position, or
+	 *                      {@link Long#MAX_VALUE} for none.
+	 * @param hashMegabytes The transposition table size of each worker.
+	 */
+	public BatchAnalyzer(int workers, int depth, long nodeLimit, int hashMegabytes) {
+		this.workers = Math.max(1, workers);
+		this.depth = Math.max(1, Math.min(Search.MAX_DEPTH, depth));
+		this.nodeLimit = nodeLimit;
+		this.hashMegabytes = hashMegabytes;
+	}
+
+	/**
+	 * Sets the number of positions read ahead of the output.
+	 *
+	 * @param capacity The bound, at least the number of workers.
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = Math.max(workers, capacity);
+	}
+
+	/**
+	 * Sets how often the output is forced to disk and checkpointed.
+	 *
+	 * @param checkpointInterval The number of positions between checkpoints.
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = Math.max(1, checkpointInterval);
+	}
+
+	/**
+	 * Sets a callback run after every checkpoint.
+	 *
+	 * @param progress Called with the number of positions written in this
+	 *                 run, or null.
+	 */
+	public void setProgress(LongConsumer progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Retrieves the checkpoint file kept next to an output file.
+	 *
+	 * @param output The output file.
+	 * @return The checkpoint file.
+	 */
+	public static Path checkpointPath(Path output) {
+		return output.resolveSibling(output.getFileName() + ".checkpoint");
+	}
+
+	/**
+	 * Stops a running analysis from any thread. Searches in progress are
+	 * abandoned and a checkpoint is written after the last position in order.
+	 */
+	public void stop() {
+		stopped = true;
+		synchronized (engines) {
+			for (Engine engine : engines) {
+				engine.stop();
+			}
+		}
+	}
+
+	/**
+	 * Analyzes the input file, blocking until it is done or {@link #stop()} is
+	 * called. If the output has a checkpoint, the output is truncated to the
+	 * checkpointed length and the analysis resumes after the checkpointed
+	 * input line; otherwise the output is overwritten. The checkpoint is
+	 * deleted once the whole input is written.
+	 *
+	 * @param input  The positions, one FEN per line.
+	 * @param output The result file.
+	 * @return The number of positions written in this run.
+	 * @throws IOException If a file cannot be read or written.
+	 */
+	public long run(Path input, Path output) throws IOException {
+		stopped = false;
+		Path checkpoint = checkpointPath(output);
+		long skip = 0;
+		long bytes = 0;
+		if (Files.exists(checkpoint)) {
+			String[] fields = Files.readString(checkpoint).trim().split("\\s+");
+			skip = Long.parseLong(fields[0]);
+			bytes = Long.parseLong(fields[1]);
+		}
+
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			channel.truncate(bytes);
+			channel.position(bytes);
+			Output out = new Output(channel, checkpoint, skip);
+			BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+			List<Thread> threads = new ArrayList<>();
+			for (int i = 0; i < workers; i++) {
+				Thread thread = new Thread(() -> work(queue, out), "batch-analyzer-" + i);
+				thread.setDaemon(true);
+				threads.add(thread);
+				thread.start();
+			}
+
+			boolean exhausted = false;
+			try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+				long lineNumber = 0;
+				long sequence = 0;
+				String line;
+				while (!stopped && out.failure == null) {
+					line = reader.readLine();
+					if (line == null) {
+						exhausted = true;
+						break;
+					}
+					lineNumber++;
+					String fen = line.trim();
+					if (lineNumber <= skip || fen.isEmpty() || fen.startsWith("#")) {
+						continue;
+					}
+					if (!acquire(out.permits)) {
+						break;
+					}
+					queue.add(new Task(sequence++, lineNumber, fen));
+				}
+			} catch (InterruptedException e) {
+				stop();
+				Thread.currentThread().interrupt();
+			} finally {
+				for (int i = 0; i < workers; i++) {
+					queue.add(END);
+				}
+				for (Thread thread : threads) {
+					try {
+						thread.join();
+					} catch (InterruptedException e) {
+						stop();
+						Thread.currentThread().interrupt();
+					}
+				}
+				synchronized (engines) {
+					engines.clear();
+				}
+			}
+
+			if (out.failure != null) {
+				throw out.failure;
+			}
+			if (exhausted && !stopped) {
+				out.flush();
+				channel.force(false);
+				Files.deleteIfExists(checkpoint);
+			} else {
+				out.checkpoint();
+			}
+			return out.written;
+		}
+	}
+
+	/**
+	 * Waits for a read-ahead permit, giving up when the analysis is stopped,
+	 * since abandoned positions never give theirs back.
+	 */
+	private boolean acquire(Semaphore permits) throws InterruptedException {
+		while (!permits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+			if (stopped) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void work(BlockingQueue<Task> queue, Output out) {
+		Engine engine = new Engine(hashMegabytes);
+		engine.getMainSearch().setNodeLimit(nodeLimit);
+		synchronized (engines) {
+			engines.add(engine);
+		}
+		// One match per worker, loaded in place for every position
+		ChessMatch match = new ChessMatch();
+		try {
+			while (true) {
+				Task task = queue.take();
+				if (task == END) {
+					return;
+				}
+				if (stopped) {
+					continue;
+				}
+				String result = analyze(engine, match, task.fen);
+				if (!stopped) {
+					out.complete(task, result);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String analyze(Engine engine, ChessMatch match, String fen) {
+		try {
+			match.load(fen);
+		} catch (RuntimeException e) {
+			return fen + "\terror\t" + e.getMessage();
+		}
+		// A fresh table keeps results independent of which worker got which
+		// positions before, so reruns and resumed runs agree
+		engine.newGame();
+		int move = engine.think(match, depth, null, null);
+		Search search = engine.getMainSearch();
+		return fen + '\t' + Move.toString(move) + '\t' + search.getBestScore() + '\t' + search.getCompletedDepth()
+				+ '\t' + search.getNodes();
+	}
+
+	/**
+	 * Puts the results back in input order and writes them. Each result frees
+	 * one read-ahead permit once written.
+	 */
+	private final class Output {
+		final FileChannel channel;
+		final Path checkpoint;
+		final Semaphore permits = new Semaphore(capacity);
+		final Map<Long, String> pending = new HashMap<>();
+		final Map<Long, Long> lines = new HashMap<>();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		long next;
+		long lastLine;
+		long written;
+		volatile IOException failure;
+
+		Output(FileChannel channel, Path checkpoint, long lastLine) {
+			this.channel = channel;
+			this.checkpoint = checkpoint;
+			this.lastLine = lastLine;
+		}
+
+		synchronized void complete(Task task, String result) {
+			pending.put(task.sequence, result);
+			lines.put(task.sequence, task.line);
+			try {
+				String text;
+				while ((text = pending.remove(next)) != null) {
+					lastLine = lines.remove(next);
+					next++;
+					append((text + '\n').getBytes(StandardCharsets.UTF_8));
+					written++;
+					permits.release();
+					if (written % checkpointInterval == 0) {
+						checkpoint();
+						if (progress != null) {
+							progress.accept(written);
+						}
+					}
+				}
+			} catch (IOException e) {
+				failure = e;
+				stop();
+			}
+		}
+
+		private void append(byte[] bytes) throws IOException {
+			if (buffer.remaining() < bytes.length) {
+				flush();
+				if (buffer.capacity() < bytes.length) {
+					buffer = ByteBuffer.allocate(bytes.length);
+				}
+			}
+			buffer.put(bytes);
+		}
+
+		synchronized void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		/**
+		 * Forces the output to disk, then atomically replaces the checkpoint
+		 * with the input line and output length reached.
+		 */
+		synchronized void checkpoint() throws IOException {
+			flush();
+			channel.force(false);
+			Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+			Files.writeString(temp, lastLine + " " + channel.position() + "\n");
+			Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
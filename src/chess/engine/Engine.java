@@ -0,0 +1,242 @@
+package chess.engine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import chess.ChessMatch;
+
+/**
+ * Engine front for protocol drivers and bots: owns the shared transposition
+ * table and runs one main search plus optional helper searches on other
+ * threads. Helpers search their own copy of the match and only contribute by
+ * filling the shared table. Positions found in the {@link PolyglotBook} or
+ * the {@link Tablebase}, if set, are answered from them without searching.
+ */
+public class Engine {
+
+	public static final int MAX_THREADS = 64;
+
+	private final Zobrist zobrist = new Zobrist();
+	private final TranspositionTable table;
+	private final List<Search> searches = new ArrayList<>();
+	private int threads = 1;
+	private TimeManager mainLimits;
+	private TimeManager helperLimits;
+	private final Random random = new Random();
+	private PolyglotBook book;
+	private Tablebase tablebase;
+
+	/**
+	 * Constructs an engine with the default table size and one thread.
+	 */
+	public Engine() {
+		this(TranspositionTable.DEFAULT_MEGABYTES);
+	}
+
+	/**
+	 * Constructs an engine with one thread.
+	 *
+	 * @param hashMegabytes The transposition table size in megabytes.
+	 */
+	public Engine(int hashMegabytes) {
+		table = new TranspositionTable(hashMegabytes);
+		searches.add(new Search(new Evaluator(), table, zobrist));
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	public Zobrist getZobrist() {
+		return zobrist;
+	}
+
+	/**
+	 * Retrieves the search run on the calling thread by
+	 * {@link #think(ChessMatch, int, TimeManager, SearchListener)}.
+	 *
+	 * @return The main search.
+	 */
+	public Search getMainSearch() {
+		return searches.get(0);
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of search threads, the calling thread included.
+	 *
+	 * @param threads The thread count, between 1 and {@link #MAX_THREADS}.
+	 */
+	public synchronized void setThreads(int threads) {
+		this.threads = Math.max(1, Math.min(MAX_THREADS, threads));
+		while (searches.size() < this.threads) {
+			searches.add(new Search(new Evaluator(), table, zobrist));
+		}
+	}
+
+	/**
+	 * Resizes the transposition table, discarding its entries.
+	 *
+	 * @param megabytes The new size in megabytes.
+	 */
+	public void setHashSize(int megabytes) {
+		table.resize(megabytes);
+	}
+
+	public synchronized PolyglotBook getBook() {
+		return book;
+	}
+
+	/**
+	 * Sets the opening book consulted before searching.
+	 *
+	 * @param book The book, or null for none.
+	 */
+	public synchronized void setBook(PolyglotBook book) {
+		this.book = book;
+	}
+
+	public synchronized Tablebase getTablebase() {
+		return tablebase;
+	}
+
+	/**
+	 * Sets the endgame tables consulted before searching.
+	 *
+	 * @param tablebase The tablebase, or null for none.
+	 */
+	public synchronized void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * Forgets everything learned from previous games.
+	 */
+	public void newGame() {
+		table.clear();
+	}
+
+	/**
+	 * Searches the match and returns the best move. Blocks until the search
+	 * ends by depth, time or {@link #stop()}. Every search is stopped through a
+	 * time manager created before its thread starts, so a stop that comes
+	 * before a search got going is not lost.
+	 *
+	 * @param match       The chess match, restored to its original state on
+	 *                    return.
+	 * @param maxDepth    The maximum depth in plies.
+	 * @param timeManager The time limits, or null for none.
+	 * @param listener    The listener of the main search, or null.
+	 * @return The best move, or {@link Move#NONE} if there is no legal move.
+	 */
+	public int think(ChessMatch match, int maxDepth, TimeManager timeManager, SearchListener listener) {
+		PolyglotBook openings = getBook();
+		int bookMove = openings == null ? Move.NONE : openings.selectMove(match, random);
+		if (bookMove != Move.NONE) {
+			return bookMove;
+		}
+		int tableMove = probeTablebase(match);
+		if (tableMove != Move.NONE) {
+			return tableMove;
+		}
+		List<Thread> helpers = new ArrayList<>();
+		List<Search> active;
+		// Without limits of its own the main search still gets a manager, as
+		// the handle stop() ends it by
+		TimeManager limits = timeManager != null ? timeManager : new TimeManager();
+		TimeManager helpersLimits = new TimeManager();
+		synchronized (this) {
+			active = new ArrayList<>(searches.subList(0, threads));
+			mainLimits = limits;
+			helperLimits = helpersLimits;
+		}
+		for (int i = 1; i < active.size(); i++) {
+			Search helper = active.get(i);
+			ChessMatch copy = new ChessMatch(match.toFen());
+			Thread thread = new Thread(() -> helper.search(copy, Search.MAX_DEPTH, helpersLimits),
+					"search-helper-" + i);
+			thread.setDaemon(true);
+			helpers.add(thread);
+			thread.start();
+		}
+
+		Search main = active.get(0);
+		main.setListener(listener);
+		int move = main.search(match, maxDepth, limits);
+
+		helpersLimits.stop();
+		for (Thread thread : helpers) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		synchronized (this) {
+			mainLimits = null;
+			helperLimits = null;
+		}
+		return move;
+	}
+
+	/**
+	 * Retrieves the tablebase move of the position, or {@link Move#NONE} if
+	 * there is no tablebase, the position is not in it or a table cannot be
+	 * read, in which case the position is searched.
+	 */
+	private int probeTablebase(ChessMatch match) {
+		Tablebase tables = getTablebase();
+		if (tables == null || !tables.canProbe(match)) {
+			return Move.NONE;
+		}
+		try {
+			return tables.bestMove(match);
+		} catch (IOException e) {
+			System.err.println("Tablebase probe failed: " + e.getMessage());
+			return Move.NONE;
+		}
+	}
+
+	/**
+	 * Sets the time limits of the running search, e.g. on a ponder hit.
+	 *
+	 * @param timeManager The time limits.
+	 */
+	public synchronized void setTimeManager(TimeManager timeManager) {
+		if (mainLimits != null) {
+			mainLimits = timeManager;
+		}
+		getMainSearch().setTimeManager(timeManager);
+	}
+
+	/**
+	 * Stops the running search and its helpers; the main search then returns
+	 * its best move so far.
+	 */
+	public synchronized void stop() {
+		if (mainLimits != null) {
+			mainLimits.stop();
+		}
+		if (helperLimits != null) {
+			helperLimits.stop();
+		}
+		getMainSearch().stop();
+	}
+
+	/**
+	 * Retrieves the expected reply to a move, see
+	 * {@link Search#ponderMove(ChessMatch, int)}.
+	 *
+	 * @param match The chess match.
+	 * @param move  The move about to be played.
+	 * @return The expected reply, or {@link Move#NONE}.
+	 */
+	public int ponderMove(ChessMatch match, int move) {
+		return getMainSearch().ponderMove(match, move);
+	}
+}
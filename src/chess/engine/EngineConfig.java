@@ -0,0 +1,117 @@
+package chess.engine;
+
+/**
+ * Settings of an engine taking part in a {@link Tournament}.
+ */
+public final class EngineConfig {
+
+	private final String name;
+	private final int depth;
+	private final long moveTimeMillis;
+	private final int hashMegabytes;
+	private final int threads;
+
+	/**
+	 * Constructs an engine configuration.
+	 *
+	 * @param name           The name shown in reports.
+	 * @param depth          The maximum search depth in plies.
+	 * @param moveTimeMillis The time per move, or 0 to search to depth.
+	 * @param hashMegabytes  The transposition table size.
+	 * @param threads        The number of search threads.
+	 */
+	public EngineConfig(String name, int depth, long moveTimeMillis, int hashMegabytes, int threads) {
+		this.name = name;
+		this.depth = Math.max(1, Math.min(Search.MAX_DEPTH, depth));
+		this.moveTimeMillis = moveTimeMillis;
+		this.hashMegabytes = hashMegabytes;
+		this.threads = threads;
+	}
+
+	/**
+	 * Parses a configuration such as "name=new,depth=5,movetime=100,hash=16,threads=1".
+	 * Missing keys take the defaults: depth 4, no time limit, 16 MB, 1 thread.
+	 *
+	 * @param spec The comma separated key=value pairs.
+	 * @return The configuration.
+	 * @throws IllegalArgumentException If a key is unknown or a value invalid.
+	 */
+	public static EngineConfig parse(String spec) {
+		String name = spec;
+		int depth = 4;
+		long moveTime = 0;
+		int hash = 16;
+		int threads = 1;
+		for (String pair : spec.split(",")) {
+			String[] kv = pair.split("=", 2);
+			if (kv.length != 2) {
+				throw new IllegalArgumentException("Invalid engine setting: " + pair);
+			}
+			switch (kv[0].trim().toLowerCase()) {
+			case "name":
+				name = kv[1].trim();
+				break;
+			case "depth":
+				depth = Integer.parseInt(kv[1].trim());
+				break;
+			case "movetime":
+				moveTime = Long.parseLong(kv[1].trim());
+				break;
+			case "hash":
+				hash = Integer.parseInt(kv[1].trim());
+				break;
+			case "threads":
+				threads = Integer.parseInt(kv[1].trim());
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown engine setting: " + kv[0]);
+			}
+		}
+		return new EngineConfig(name, depth, moveTime, hash, threads);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getMoveTimeMillis() {
+		return moveTimeMillis;
+	}
+
+	public int getHashMegabytes() {
+		return hashMegabytes;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Creates an engine with these settings.
+	 *
+	 * @return A new engine.
+	 */
+	public Engine createEngine() {
+		Engine engine = new Engine(hashMegabytes);
+		engine.setThreads(threads);
+		return engine;
+	}
+
+	/**
+	 * Creates the time limits of one move.
+	 *
+	 * @return The time manager, or null to search to depth.
+	 */
+	public TimeManager createTimeManager() {
+		return moveTimeMillis > 0 ? new TimeManager(moveTimeMillis) : null;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,124 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Static evaluation of a chess match: material, piece-square tables and
+ * mobility, taken from the attack maps of the match. Scores are in centipawns
+ * from the point of view of the side to move.
+ */
+public class Evaluator {
+
+	/**
+	 * Material values in centipawns, indexed by {@link PieceType}.
+	 */
+	public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+	/**
+	 * Centipawns per square a side attacks that is not occupied by its own
+	 * pieces.
+	 */
+	public static final int MOBILITY = 2;
+
+	/**
+	 * Piece-square tables from White's point of view, row 0 being rank 8.
+	 */
+	private static final int[][] PIECE_SQUARE = {
+			// Pawn
+			{ 0, 0, 0, 0, 0, 0, 0, 0,
+			  50, 50, 50, 50, 50, 50, 50, 50,
+			  10, 10, 20, 30, 30, 20, 10, 10,
+			  5, 5, 10, 25, 25, 10, 5, 5,
+			  0, 0, 0, 20, 20, 0, 0, 0,
+			  5, -5, -10, 0, 0, -10, -5, 5,
+			  5, 10, 10, -20, -20, 10, 10, 5,
+			  0, 0, 0, 0, 0, 0, 0, 0 },
+			// Knight
+			{ -50, -40, -30, -30, -30, -30, -40, -50,
+			  -40, -20, 0, 0, 0, 0, -20, -40,
+			  -30, 0, 10, 15, 15, 10, 0, -30,
+			  -30, 5, 15, 20, 20, 15, 5, -30,
+			  -30, 0, 15, 20, 20, 15, 0, -30,
+			  -30, 5, 10, 15, 15, 10, 5, -30,
+			  -40, -20, 0, 5, 5, 0, -20, -40,
+			  -50, -40, -30, -30, -30, -30, -40, -50 },
+			// Bishop
+			{ -20, -10, -10, -10, -10, -10, -10, -20,
+			  -10, 0, 0, 0, 0, 0, 0, -10,
+			  -10, 0, 5, 10, 10, 5, 0, -10,
+			  -10, 5, 5, 10, 10, 5, 5, -10,
+			  -10, 0, 10, 10, 10, 10, 0, -10,
+			  -10, 10, 10, 10, 10, 10, 10, -10,
+			  -10, 5, 0, 0, 0, 0, 5, -10,
+			  -20, -10, -10, -10, -10, -10, -10, -20 },
+			// Rook
+			{ 0, 0, 0, 0, 0, 0, 0, 0,
+			  5, 10, 10, 10, 10, 10, 10, 5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  -5, 0, 0, 0, 0, 0, 0, -5,
+			  0, 0, 0, 5, 5, 0, 0, 0 },
+			// Queen
+			{ -20, -10, -10, -5, -5, -10, -10, -20,
+			  -10, 0, 0, 0, 0, 0, 0, -10,
+			  -10, 0, 5, 5, 5, 5, 0, -10,
+			  -5, 0, 5, 5, 5, 5, 0, -5,
+			  0, 0, 5, 5, 5, 5, 0, -5,
+			  -10, 5, 5, 5, 5, 5, 0, -10,
+			  -10, 0, 5, 0, 0, 0, 0, -10,
+			  -20, -10, -10, -5, -5, -10, -10, -20 },
+			// King
+			{ -30, -40, -40, -50, -50, -40, -40, -30,
+			  -30, -40, -40, -50, -50, -40, -40, -30,
+			  -30, -40, -40, -50, -50, -40, -40, -30,
+			  -30, -40, -40, -50, -50, -40, -40, -30,
+			  -20, -30, -30, -40, -40, -30, -30, -20,
+			  -10, -20, -20, -20, -20, -20, -20, -10,
+			  20, 20, 0, 0, 0, 0, 20, 20,
+			  20, 30, 10, 0, 0, 10, 30, 20 } };
+
+	/**
+	 * Evaluates the match from the point of view of the side to move.
+	 *
+	 * @param match The chess match.
+	 * @return The score in centipawns.
+	 */
+	public int evaluate(ChessMatch match) {
+		int score = 0;
+		long white = 0;
+		long black = 0;
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 8; column++) {
+				ChessPiece p = match.getPiece(row, column);
+				if (p == null) {
+					continue;
+				}
+				int type = PieceType.of(p);
+				if (p.getColor() == Color.WHITE) {
+					score += PIECE_VALUES[type] + PIECE_SQUARE[type][row * 8 + column];
+					white |= 1L << (row * 8 + column);
+				} else {
+					score -= PIECE_VALUES[type] + PIECE_SQUARE[type][(7 - row) * 8 + column];
+					black |= 1L << (row * 8 + column);
+				}
+			}
+		}
+		score += MOBILITY * (Long.bitCount(match.getAttackMap(Color.WHITE).getAttacked() & ~white)
+				- Long.bitCount(match.getAttackMap(Color.BLACK).getAttacked() & ~black));
+		return match.getCurrentPlayer() == Color.WHITE ? score : -score;
+	}
+
+	/**
+	 * Retrieves the material value of a piece.
+	 *
+	 * @param piece The chess piece, may be null.
+	 * @return The value in centipawns, 0 for null.
+	 */
+	public static int value(ChessPiece piece) {
+		return piece == null ? 0 : PIECE_VALUES[PieceType.of(piece)];
+	}
+}
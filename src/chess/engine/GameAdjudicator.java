@@ -0,0 +1,177 @@
+package chess.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.pieces.Bishop;
+import chess.pieces.King;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+
+/**
+ * Plays moves on a chess match and decides when the game is over. Checkmate
+ * comes from the match itself; the draws that ChessMatch does not detect
+ * (stalemate, threefold repetition, the fifty-move rule and insufficient
+ * material) are tracked here, plus a ply limit for runaway games.
+ */
+public class GameAdjudicator {
+
+	public static final int DEFAULT_MAX_PLIES = 400;
+
+	/**
+	 * State of the game after a move.
+	 */
+	public enum Outcome {
+		ONGOING(Double.NaN),
+		WHITE_MATES(1),
+		BLACK_MATES(0),
+		STALEMATE(0.5),
+		REPETITION(0.5),
+		FIFTY_MOVES(0.5),
+		INSUFFICIENT_MATERIAL(0.5),
+		MAX_PLIES(0.5);
+
+		private final double whiteScore;
+
+		Outcome(double whiteScore) {
+			this.whiteScore = whiteScore;
+		}
+
+		/**
+		 * Retrieves the score of white in a finished game.
+		 *
+		 * @return 1 for a white win, 0 for a black win, 0.5 for a draw, NaN if
+		 *         the game is ongoing.
+		 */
+		public double getWhiteScore() {
+			return whiteScore;
+		}
+	}
+
+	private final ChessMatch match;
+	private final Zobrist zobrist;
+	private final int maxPlies;
+	private final Map<Long, Integer> repetitions = new HashMap<>();
+	private final int[] moves = new int[256];
+	private int halfmoveClock;
+	private int plies;
+	private Outcome outcome;
+
+	/**
+	 * Constructs an adjudicator for a match about to be played.
+	 *
+	 * @param match    The chess match, in its starting position.
+	 * @param zobrist  The keys used to detect repetitions.
+	 * @param maxPlies The number of plies after which the game is drawn.
+	 */
+	public GameAdjudicator(ChessMatch match, Zobrist zobrist, int maxPlies) {
+		this.match = match;
+		this.zobrist = zobrist;
+		this.maxPlies = maxPlies;
+		repetitions.put(zobrist.hash(match), 1);
+		outcome = adjudicate(false);
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public int getPlies() {
+		return plies;
+	}
+
+	/**
+	 * Plays a legal move and adjudicates the resulting position.
+	 *
+	 * @param move The encoded move.
+	 * @return The outcome after the move.
+	 * @throws IllegalStateException If the game is already over.
+	 */
+	public Outcome play(int move) {
+		if (outcome != Outcome.ONGOING) {
+			throw new IllegalStateException("The game is over: " + outcome);
+		}
+		boolean pawn = match.getPiece(Move.sourceRow(move), Move.sourceColumn(move)) instanceof Pawn;
+		ChessPiece captured = match.performChessMove(Move.sourceChessPosition(move), Move.targetChessPosition(move));
+		if (match.getPromoted() != null && Move.promotionType(move) != null) {
+			match.replacePromotedPiece(Move.promotionType(move));
+		}
+		plies++;
+		halfmoveClock = pawn || captured != null ? 0 : halfmoveClock + 1;
+		if (halfmoveClock == 0) {
+			// No earlier position can repeat after a pawn move or a capture
+			repetitions.clear();
+		}
+		boolean repeated = repetitions.merge(zobrist.hash(match), 1, Integer::sum) >= 3;
+		outcome = adjudicate(repeated);
+		return outcome;
+	}
+
+	private Outcome adjudicate(boolean repeated) {
+		if (match.getCheckMate()) {
+			return match.getCurrentPlayer() == Color.WHITE ? Outcome.WHITE_MATES : Outcome.BLACK_MATES;
+		}
+		if (!hasLegalMove()) {
+			// The match normally reports checkmate itself; this covers any flag
+			// it did not recompute
+			Color mover = match.getCurrentPlayer();
+			if (MoveGenerator.isInCheck(match, mover)) {
+				return mover == Color.WHITE ? Outcome.BLACK_MATES : Outcome.WHITE_MATES;
+			}
+			return Outcome.STALEMATE;
+		}
+		if (repeated) {
+			return Outcome.REPETITION;
+		}
+		if (halfmoveClock >= 100) {
+			return Outcome.FIFTY_MOVES;
+		}
+		if (insufficientMaterial()) {
+			return Outcome.INSUFFICIENT_MATERIAL;
+		}
+		if (plies >= maxPlies) {
+			return Outcome.MAX_PLIES;
+		}
+		return Outcome.ONGOING;
+	}
+
+	/**
+	 * Checks if the side to move has a legal move, trying the pseudo-legal
+	 * moves of the generator until one does not leave its king in check.
+	 */
+	private boolean hasLegalMove() {
+		Color mover = match.getCurrentPlayer();
+		int count = MoveGenerator.generateMoves(match, moves);
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+			boolean legal = !MoveGenerator.isInCheck(match, mover);
+			match.undoSearchMove();
+			if (legal) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks for bare kings, or a single bishop or knight against a bare king.
+	 */
+	private boolean insufficientMaterial() {
+		if (match.getPieceCount() > 3) {
+			return false;
+		}
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 8; column++) {
+				ChessPiece piece = match.getPiece(row, column);
+				if (piece != null && !(piece instanceof King || piece instanceof Bishop || piece instanceof Knight)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
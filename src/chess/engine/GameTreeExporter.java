@@ -0,0 +1,436 @@
+package chess.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.CompactMatch;
+
+/**
+ * Writes every legal move sequence up to a fixed depth from a position as a
+ * directed acyclic graph: positions reached at the same ply by different move
+ * orders are merged by their {@link Zobrist} hash, so the file grows with the
+ * number of distinct positions rather than with the number of sequences.
+ *
+ * The graph is built one ply at a time. The positions of the ply being
+ * expanded are read back in chunks from a temporary file of
+ * {@link CompactMatch} records, a pool of threads generates the moves of each
+ * chunk, and a single thread numbers the new positions and writes the records
+ * in order, so the output does not depend on scheduling. Besides the chunk,
+ * memory holds only a hash index and a path count per position of the next
+ * ply.
+ *
+ * File layout, all numbers big-endian and "varint" meaning 7 bits per byte,
+ * low bits first, high bit set on all but the last byte:
+ *
+ * <pre>
+ * int magic 'CDAG', byte version, byte depth, UTF root FEN
+ * NODE:  byte 0, byte ply, long hash          (node ids count up from 0)
+ * EDGES: byte 1, varint parent, varint count, count x (varint move, varint child)
+ * END:   byte 2, varint nodes, varint edges
+ * </pre>
+ *
+ * Every node is written before an edge refers to it. Moves are encoded as in
+ * {@link Move}. Positions at the last ply have no EDGES record; a position
+ * with an EDGES record of count 0 is checkmate or stalemate. An output file
+ * whose name ends in ".gz" is compressed with gzip.
+ */
+public class GameTreeExporter {
+
+	public static final int MAGIC = 0x43444147;
+	public static final int VERSION = 1;
+	public static final int NODE = 0;
+	public static final int EDGES = 1;
+	public static final int END = 2;
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	private static final short[] NO_HISTORY = new short[0];
+
+	private final int threads;
+	private final Zobrist zobrist;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Summary of an export.
+	 */
+	public static final class Result {
+
+		private final long nodes;
+		private final long edges;
+		private final long treeNodes;
+
+		Result(long nodes, long edges, long treeNodes) {
+			this.nodes = nodes;
+			this.edges = edges;
+			this.treeNodes = treeNodes;
+		}
+
+		/**
+		 * Retrieves the number of distinct positions written.
+		 *
+		 * @return The number of nodes of the graph.
+		 */
+		public long getNodes() {
+			return nodes;
+		}
+
+		/**
+		 * Retrieves the number of moves written.
+		 *
+		 * @return The number of edges of the graph.
+		 */
+		public long getEdges() {
+			return edges;
+		}
+
+		/**
+		 * Retrieves the number of nodes the same moves form as a tree, the
+		 * root included: the sum of the perft counts of every ply.
+		 *
+		 * @return The number of move sequences of every length up to the depth.
+		 */
+		public long getTreeNodes() {
+			return treeNodes;
+		}
+	}
+
+	/**
+	 * The legal moves of one position and the positions they lead to.
+	 */
+	private static final class Expansion {
+		final int[] moves;
+		final long[] hashes;
+		final CompactMatch[] children;
+
+		Expansion(int[] moves, long[] hashes, CompactMatch[] children) {
+			this.moves = moves;
+			this.hashes = hashes;
+			this.children = children;
+		}
+	}
+
+	/**
+	 * Constructs an exporter hashing positions with the default keys.
+	 *
+	 * @param threads The number of threads generating moves.
+	 */
+	public GameTreeExporter(int threads) {
+		this(threads, new Zobrist());
+	}
+
+	/**
+	 * Constructs an exporter.
+	 *
+	 * @param threads The number of threads generating moves.
+	 * @param zobrist The keys positions are hashed and merged with.
+	 */
+	public GameTreeExporter(int threads, Zobrist zobrist) {
+		this.threads = Math.max(1, threads);
+		this.zobrist = zobrist;
+	}
+
+	/**
+	 * Sets the number of positions read and expanded at once.
+	 *
+	 * @param chunkSize The number of positions, at least the number of threads.
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = Math.max(threads, chunkSize);
+	}
+
+	/**
+	 * Writes the graph of all legal move sequences up to a depth.
+	 *
+	 * @param root   The starting position, left as it is.
+	 * @param depth  The depth in plies.
+	 * @param output The file to write.
+	 * @return The sizes of the graph and of the tree it stands for.
+	 * @throws IOException          If the output or a temporary file cannot be
+	 *                              written.
+	 * @throws InterruptedException If interrupted while waiting for the
+	 *                              threads.
+	 */
+	public Result export(ChessMatch root, int depth, Path output) throws IOException, InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "game-tree");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ThreadLocal<ChessMatch> matches = ThreadLocal.withInitial(ChessMatch::new);
+		List<Path> temporary = new ArrayList<>();
+		try (DataOutputStream out = open(output)) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte(depth);
+			out.writeUTF(root.toFen());
+			writeNode(out, 0, zobrist.hash(root));
+
+			Path frontier = temporaryFile(temporary);
+			try (DataOutputStream frontierOut = frontierWriter(frontier)) {
+				writePosition(frontierOut, CompactMatch.of(root, List.of(), NO_HISTORY));
+			}
+			long nodes = 1;
+			long edges = 0;
+			long treeNodes = 1;
+			long levelFirst = 0;
+			long[] paths = { 1 };
+			for (int ply = 0; ply < depth && paths.length > 0; ply++) {
+				boolean last = ply + 1 == depth;
+				Path next = last ? null : temporaryFile(temporary);
+				long nextFirst = nodes;
+				long[] nextPaths = new long[16];
+				HashIndex index = new HashIndex();
+				try (DataInputStream in = frontierReader(frontier);
+						DataOutputStream nextOut = last ? null : frontierWriter(next)) {
+					for (int start = 0; start < paths.length; start += chunkSize) {
+						CompactMatch[] positions = new CompactMatch[Math.min(chunkSize, paths.length - start)];
+						for (int i = 0; i < positions.length; i++) {
+							positions[i] = readPosition(in);
+						}
+						Expansion[] expansions = expand(pool, matches, positions, !last);
+						for (int i = 0; i < expansions.length; i++) {
+							Expansion expansion = expansions[i];
+							long[] children = new long[expansion.moves.length];
+							for (int k = 0; k < children.length; k++) {
+								long hash = expansion.hashes[k];
+								int id = index.get(hash);
+								if (id < 0) {
+									id = (int) (nodes - nextFirst);
+									index.put(hash, id);
+									writeNode(out, ply + 1, hash);
+									nodes++;
+									if (id == nextPaths.length) {
+										nextPaths = Arrays.copyOf(nextPaths, id * 2);
+									}
+									if (nextOut != null) {
+										writePosition(nextOut, expansion.children[k]);
+									}
+								}
+								nextPaths[id] += paths[start + i];
+								children[k] = nextFirst + id;
+							}
+							writeEdges(out, levelFirst + start + i, expansion.moves, children);
+							edges += children.length;
+						}
+					}
+				}
+				Files.delete(frontier);
+				frontier = next;
+				paths = Arrays.copyOf(nextPaths, (int) (nodes - nextFirst));
+				levelFirst = nextFirst;
+				for (long count : paths) {
+					treeNodes += count;
+				}
+			}
+			out.writeByte(END);
+			writeVarint(out, nodes);
+			writeVarint(out, edges);
+			return new Result(nodes, edges, treeNodes);
+		} finally {
+			pool.shutdownNow();
+			for (Path path : temporary) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	/**
+	 * Expands a chunk of positions on the pool, one slice per thread, and
+	 * returns the expansions in chunk order.
+	 */
+	private Expansion[] expand(ExecutorService pool, ThreadLocal<ChessMatch> matches, CompactMatch[] positions,
+			boolean keepChildren) throws IOException, InterruptedException {
+		Expansion[] expansions = new Expansion[positions.length];
+		int slice = (positions.length + threads - 1) / threads;
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int from = 0; from < positions.length; from += slice) {
+			int first = from;
+			int end = Math.min(positions.length, from + slice);
+			tasks.add(() -> {
+				ChessMatch match = matches.get();
+				int[] buffer = new int[256];
+				for (int i = first; i < end; i++) {
+					expansions[i] = expand(match, positions[i], buffer, keepChildren);
+				}
+				return null;
+			});
+		}
+		for (Future<Void> future : pool.invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+		return expansions;
+	}
+
+	private Expansion expand(ChessMatch match, CompactMatch position, int[] buffer, boolean keepChildren) {
+		match.load(position.toFen());
+		Color mover = match.getCurrentPlayer();
+		int count = MoveGenerator.generateMoves(match, buffer);
+		int[] moves = new int[count];
+		long[] hashes = new long[count];
+		CompactMatch[] children = keepChildren ? new CompactMatch[count] : null;
+		int legal = 0;
+		for (int i = 0; i < count; i++) {
+			int move = buffer[i];
+			match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+			if (!MoveGenerator.isInCheck(match, mover)) {
+				moves[legal] = move;
+				hashes[legal] = zobrist.hash(match);
+				if (keepChildren) {
+					children[legal] = CompactMatch.of(match, List.of(), NO_HISTORY);
+				}
+				legal++;
+			}
+			match.undoSearchMove();
+		}
+		return new Expansion(Arrays.copyOf(moves, legal), Arrays.copyOf(hashes, legal),
+				keepChildren ? Arrays.copyOf(children, legal) : null);
+	}
+
+	private static DataOutputStream open(Path output) throws IOException {
+		OutputStream stream = Files.newOutputStream(output);
+		if (output.getFileName().toString().endsWith(".gz")) {
+			stream = new GZIPOutputStream(stream, 1 << 16);
+		}
+		return new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+	}
+
+	private static Path temporaryFile(List<Path> temporary) throws IOException {
+		Path path = Files.createTempFile("game-tree", ".frontier");
+		temporary.add(path);
+		return path;
+	}
+
+	private static DataOutputStream frontierWriter(Path path) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+	}
+
+	private static DataInputStream frontierReader(Path path) throws IOException {
+		return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+	}
+
+	private static void writePosition(DataOutputStream out, CompactMatch position) throws IOException {
+		byte[] bytes = position.toByteArray();
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	private static CompactMatch readPosition(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		return CompactMatch.read(ByteBuffer.wrap(bytes));
+	}
+
+	private static void writeNode(DataOutputStream out, int ply, long hash) throws IOException {
+		out.writeByte(NODE);
+		out.writeByte(ply);
+		out.writeLong(hash);
+	}
+
+	private static void writeEdges(DataOutputStream out, long parent, int[] moves, long[] children)
+			throws IOException {
+		out.writeByte(EDGES);
+		writeVarint(out, parent);
+		writeVarint(out, moves.length);
+		for (int k = 0; k < moves.length; k++) {
+			writeVarint(out, moves[k]);
+			writeVarint(out, children[k]);
+		}
+	}
+
+	private static void writeVarint(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/**
+	 * Open-addressing map from position hash to node id within one ply, the
+	 * only structure that grows with the number of positions.
+	 */
+	private static final class HashIndex {
+		private long[] keys = new long[1 << 10];
+		private int[] values = new int[1 << 10];
+		private int size;
+		private boolean hasZero;
+		private int zeroValue;
+
+		int get(long key) {
+			if (key == 0) {
+				return hasZero ? zeroValue : -1;
+			}
+			int mask = keys.length - 1;
+			for (int slot = slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+				if (keys[slot] == key) {
+					return values[slot];
+				}
+			}
+			return -1;
+		}
+
+		void put(long key, int value) {
+			if (key == 0) {
+				hasZero = true;
+				zeroValue = value;
+				return;
+			}
+			if (2 * (size + 1) > keys.length) {
+				grow();
+			}
+			int mask = keys.length - 1;
+			int slot = slot(key, mask);
+			while (keys[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			values[slot] = value;
+			size++;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new int[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		private static int slot(long key, int mask) {
+			return (int) (key ^ key >>> 32) & mask;
+		}
+	}
+}
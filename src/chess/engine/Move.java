@@ -0,0 +1,112 @@
+package chess.engine;
+
+import boardgame.Position;
+import chess.ChessPosition;
+
+/**
+ * Static helpers for moves encoded as a single int, so move lists can live in
+ * preallocated int arrays instead of boolean matrices or objects.
+ *
+ * Layout: bits 0-3 target column, 4-7 target row, 8-11 source column, 12-15
+ * source row, 16-18 promotion type and bit 19 the capture flag.
+ */
+public final class Move {
+
+	public static final int NONE = 0;
+
+	public static final int PROMOTION_NONE = 0;
+	public static final int PROMOTION_KNIGHT = 1;
+	public static final int PROMOTION_BISHOP = 2;
+	public static final int PROMOTION_ROOK = 3;
+	public static final int PROMOTION_QUEEN = 4;
+
+	private static final int CAPTURE_FLAG = 1 << 19;
+	private static final String[] PROMOTION_TYPES = { null, "N", "B", "R", "Q" };
+
+	private Move() {
+	}
+
+	/**
+	 * Encodes a move.
+	 *
+	 * @param sourceRow    The source row.
+	 * @param sourceColumn The source column.
+	 * @param targetRow    The target row.
+	 * @param targetColumn The target column.
+	 * @param promotion    One of the PROMOTION_ constants.
+	 * @param capture      Whether the move captures a piece.
+	 * @return The encoded move.
+	 */
+	public static int of(int sourceRow, int sourceColumn, int targetRow, int targetColumn, int promotion,
+			boolean capture) {
+		return targetColumn | targetRow << 4 | sourceColumn << 8 | sourceRow << 12 | promotion << 16
+				| (capture ? CAPTURE_FLAG : 0);
+	}
+
+	public static int sourceRow(int move) {
+		return (move >>> 12) & 0xF;
+	}
+
+	public static int sourceColumn(int move) {
+		return (move >>> 8) & 0xF;
+	}
+
+	public static int targetRow(int move) {
+		return (move >>> 4) & 0xF;
+	}
+
+	public static int targetColumn(int move) {
+		return move & 0xF;
+	}
+
+	public static int promotion(int move) {
+		return (move >>> 16) & 0x7;
+	}
+
+	public static boolean isCapture(int move) {
+		return (move & CAPTURE_FLAG) != 0;
+	}
+
+	/**
+	 * Retrieves the promotion piece type in the form accepted by
+	 * {@link chess.ChessMatch#replacePromotedPiece(String)}.
+	 *
+	 * @param move The encoded move.
+	 * @return "N", "B", "R", "Q" or null if the move is not a promotion.
+	 */
+	public static String promotionType(int move) {
+		return PROMOTION_TYPES[promotion(move)];
+	}
+
+	public static Position source(int move) {
+		return Position.of(sourceRow(move), sourceColumn(move));
+	}
+
+	public static Position target(int move) {
+		return Position.of(targetRow(move), targetColumn(move));
+	}
+
+	public static ChessPosition sourceChessPosition(int move) {
+		return ChessPosition.of((char) ('a' + sourceColumn(move)), 8 - sourceRow(move));
+	}
+
+	public static ChessPosition targetChessPosition(int move) {
+		return ChessPosition.of((char) ('a' + targetColumn(move)), 8 - targetRow(move));
+	}
+
+	/**
+	 * Formats a move in long algebraic notation, e.g. "e2e4" or "e7e8q".
+	 *
+	 * @param move The encoded move.
+	 * @return The move text, or "0000" for {@link #NONE}.
+	 */
+	public static String toString(int move) {
+		if (move == NONE) {
+			return "0000";
+		}
+		String s = "" + (char) ('a' + sourceColumn(move)) + (8 - sourceRow(move)) + (char) ('a' + targetColumn(move))
+				+ (8 - targetRow(move));
+		String promotion = promotionType(move);
+		return promotion == null ? s : s + promotion.toLowerCase();
+	}
+}
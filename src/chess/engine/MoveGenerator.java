@@ -0,0 +1,313 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Generates pseudo-legal moves of a {@link ChessMatch} straight into int
+ * arrays, reading the board square by square instead of building a
+ * possibleMovies() matrix for every piece.
+ */
+public final class MoveGenerator {
+
+	private static final int SIZE = 8;
+
+	private static final int[][] KNIGHT_STEPS = { { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 },
+			{ 2, -1 }, { 2, 1 } };
+	private static final int[][] KING_STEPS = { { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 },
+			{ 1, 0 }, { 1, 1 } };
+	private static final int[][] ROOK_RAYS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+	private static final int[][] BISHOP_RAYS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Generates all pseudo-legal moves of the side to move. Moves that leave the
+	 * own king in check are included and must be filtered by the caller.
+	 *
+	 * @param match The chess match.
+	 * @param moves The buffer receiving the encoded moves.
+	 * @return The number of moves written to the buffer.
+	 */
+	public static int generateMoves(ChessMatch match, int[] moves) {
+		return generate(match, moves, false);
+	}
+
+	/**
+	 * Generates only the captures, en passant captures and promotions of the
+	 * side to move, as needed by the quiescence search.
+	 *
+	 * @param match The chess match.
+	 * @param moves The buffer receiving the encoded moves.
+	 * @return The number of moves written to the buffer.
+	 */
+	public static int generateCaptures(ChessMatch match, int[] moves) {
+		return generate(match, moves, true);
+	}
+
+	/**
+	 * Checks if the king of the given color is attacked.
+	 *
+	 * @param match The chess match.
+	 * @param color The color of the king.
+	 * @return true if the king is in check, false otherwise.
+	 */
+	public static boolean isInCheck(ChessMatch match, Color color) {
+		for (int row = 0; row < SIZE; row++) {
+			for (int column = 0; column < SIZE; column++) {
+				ChessPiece p = match.getPiece(row, column);
+				if (p != null && p.getColor() == color && PieceType.of(p) == PieceType.KING) {
+					return isSquareAttacked(match, row, column, opponent(color));
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a square is attacked by any piece of the given color.
+	 *
+	 * @param match  The chess match.
+	 * @param row    The row of the square.
+	 * @param column The column of the square.
+	 * @param by     The color of the attacking side.
+	 * @return true if the square is attacked, false otherwise.
+	 */
+	public static boolean isSquareAttacked(ChessMatch match, int row, int column, Color by) {
+		int pawnRow = by == Color.WHITE ? row + 1 : row - 1;
+		if (isPiece(match, pawnRow, column - 1, by, PieceType.PAWN)
+				|| isPiece(match, pawnRow, column + 1, by, PieceType.PAWN)) {
+			return true;
+		}
+		for (int[] step : KNIGHT_STEPS) {
+			if (isPiece(match, row + step[0], column + step[1], by, PieceType.KNIGHT)) {
+				return true;
+			}
+		}
+		for (int[] step : KING_STEPS) {
+			if (isPiece(match, row + step[0], column + step[1], by, PieceType.KING)) {
+				return true;
+			}
+		}
+		return isRayAttacked(match, row, column, by, ROOK_RAYS, PieceType.ROOK)
+				|| isRayAttacked(match, row, column, by, BISHOP_RAYS, PieceType.BISHOP);
+	}
+
+	private static boolean isRayAttacked(ChessMatch match, int row, int column, Color by, int[][] rays,
+			int sliderType) {
+		for (int[] ray : rays) {
+			int r = row + ray[0];
+			int c = column + ray[1];
+			while (exists(r, c)) {
+				ChessPiece p = match.getPiece(r, c);
+				if (p != null) {
+					if (p.getColor() == by) {
+						int type = PieceType.of(p);
+						if (type == sliderType || type == PieceType.QUEEN) {
+							return true;
+						}
+					}
+					break;
+				}
+				r += ray[0];
+				c += ray[1];
+			}
+		}
+		return false;
+	}
+
+	private static int generate(ChessMatch match, int[] moves, boolean capturesOnly) {
+		Color color = match.getCurrentPlayer();
+		int count = 0;
+		for (int row = 0; row < SIZE; row++) {
+			for (int column = 0; column < SIZE; column++) {
+				ChessPiece p = match.getPiece(row, column);
+				if (p == null || p.getColor() != color) {
+					continue;
+				}
+				switch (PieceType.of(p)) {
+				case PieceType.PAWN:
+					count = pawnMoves(match, p, row, column, moves, count, capturesOnly);
+					break;
+				case PieceType.KNIGHT:
+					count = stepMoves(match, color, row, column, KNIGHT_STEPS, moves, count, capturesOnly);
+					break;
+				case PieceType.BISHOP:
+					count = rayMoves(match, color, row, column, BISHOP_RAYS, moves, count, capturesOnly);
+					break;
+				case PieceType.ROOK:
+					count = rayMoves(match, color, row, column, ROOK_RAYS, moves, count, capturesOnly);
+					break;
+				case PieceType.QUEEN:
+					count = rayMoves(match, color, row, column, ROOK_RAYS, moves, count, capturesOnly);
+					count = rayMoves(match, color, row, column, BISHOP_RAYS, moves, count, capturesOnly);
+					break;
+				default:
+					count = stepMoves(match, color, row, column, KING_STEPS, moves, count, capturesOnly);
+					if (!capturesOnly) {
+						count = castlingMoves(match, p, row, column, moves, count);
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int pawnMoves(ChessMatch match, ChessPiece pawn, int row, int column, int[] moves, int count,
+			boolean capturesOnly) {
+		Color color = pawn.getColor();
+		int direction = color == Color.WHITE ? -1 : 1;
+		int promotionRow = color == Color.WHITE ? 0 : SIZE - 1;
+		int forward = row + direction;
+		if (!exists(forward, column)) {
+			return count;
+		}
+
+		if (match.getPiece(forward, column) == null) {
+			if (forward == promotionRow) {
+				count = promotions(row, column, forward, column, false, moves, count, capturesOnly);
+			} else if (!capturesOnly) {
+				moves[count++] = Move.of(row, column, forward, column, Move.PROMOTION_NONE, false);
+				int jump = forward + direction;
+				if (pawn.getMoveCount() == 0 && exists(jump, column) && match.getPiece(jump, column) == null) {
+					moves[count++] = Move.of(row, column, jump, column, Move.PROMOTION_NONE, false);
+				}
+			}
+		}
+
+		for (int side = -1; side <= 1; side += 2) {
+			int c = column + side;
+			if (!exists(forward, c)) {
+				continue;
+			}
+			ChessPiece target = match.getPiece(forward, c);
+			if (target != null && target.getColor() != color) {
+				if (forward == promotionRow) {
+					count = promotions(row, column, forward, c, true, moves, count, false);
+				} else {
+					moves[count++] = Move.of(row, column, forward, c, Move.PROMOTION_NONE, true);
+				}
+			} else if (target == null) {
+				ChessPiece beside = match.getPiece(row, c);
+				if (beside != null && beside == match.getEnPassant() && beside.getColor() != color) {
+					moves[count++] = Move.of(row, column, forward, c, Move.PROMOTION_NONE, true);
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int promotions(int row, int column, int targetRow, int targetColumn, boolean capture, int[] moves,
+			int count, boolean queenOnly) {
+		moves[count++] = Move.of(row, column, targetRow, targetColumn, Move.PROMOTION_QUEEN, capture);
+		if (!queenOnly) {
+			moves[count++] = Move.of(row, column, targetRow, targetColumn, Move.PROMOTION_ROOK, capture);
+			moves[count++] = Move.of(row, column, targetRow, targetColumn, Move.PROMOTION_BISHOP, capture);
+			moves[count++] = Move.of(row, column, targetRow, targetColumn, Move.PROMOTION_KNIGHT, capture);
+		}
+		return count;
+	}
+
+	private static int stepMoves(ChessMatch match, Color color, int row, int column, int[][] steps, int[] moves,
+			int count, boolean capturesOnly) {
+		for (int[] step : steps) {
+			int r = row + step[0];
+			int c = column + step[1];
+			if (!exists(r, c)) {
+				continue;
+			}
+			ChessPiece target = match.getPiece(r, c);
+			if (target == null) {
+				if (!capturesOnly) {
+					moves[count++] = Move.of(row, column, r, c, Move.PROMOTION_NONE, false);
+				}
+			} else if (target.getColor() != color) {
+				moves[count++] = Move.of(row, column, r, c, Move.PROMOTION_NONE, true);
+			}
+		}
+		return count;
+	}
+
+	private static int rayMoves(ChessMatch match, Color color, int row, int column, int[][] rays, int[] moves,
+			int count, boolean capturesOnly) {
+		for (int[] ray : rays) {
+			int r = row + ray[0];
+			int c = column + ray[1];
+			while (exists(r, c)) {
+				ChessPiece target = match.getPiece(r, c);
+				if (target != null) {
+					if (target.getColor() != color) {
+						moves[count++] = Move.of(row, column, r, c, Move.PROMOTION_NONE, true);
+					}
+					break;
+				}
+				if (!capturesOnly) {
+					moves[count++] = Move.of(row, column, r, c, Move.PROMOTION_NONE, false);
+				}
+				r += ray[0];
+				c += ray[1];
+			}
+		}
+		return count;
+	}
+
+	private static int castlingMoves(ChessMatch match, ChessPiece king, int row, int column, int[] moves, int count) {
+		if (king.getMoveCount() != 0) {
+			return count;
+		}
+		Color enemy = opponent(king.getColor());
+		if (isSquareAttacked(match, row, column, enemy)) {
+			return count;
+		}
+		count = castlingMove(match, king, row, column, true, enemy, moves, count);
+		return castlingMove(match, king, row, column, false, enemy, moves, count);
+	}
+
+	/**
+	 * Adds the castling move on one side if the right holds, every square the
+	 * king and rook cross or land on is free but for themselves, and no square
+	 * the king crosses or lands on is attacked.
+	 */
+	private static int castlingMove(ChessMatch match, ChessPiece king, int row, int column, boolean kingside,
+			Color enemy, int[] moves, int count) {
+		if (!match.hasCastlingRight(king.getColor(), kingside)) {
+			return count;
+		}
+		int rookColumn = match.getCastlingRookColumn(king.getColor(), kingside);
+		int kingTarget = ChessMatch.castlingKingTarget(kingside);
+		int rookTarget = ChessMatch.castlingRookTarget(kingside);
+		int from = Math.min(Math.min(column, rookColumn), Math.min(kingTarget, rookTarget));
+		int to = Math.max(Math.max(column, rookColumn), Math.max(kingTarget, rookTarget));
+		for (int c = from; c <= to; c++) {
+			if (c != column && c != rookColumn && match.getPiece(row, c) != null) {
+				return count;
+			}
+		}
+		for (int c = Math.min(column, kingTarget); c <= Math.max(column, kingTarget); c++) {
+			if (c != column && isSquareAttacked(match, row, c, enemy)) {
+				return count;
+			}
+		}
+		int target = match.isChess960() ? rookColumn : kingTarget;
+		moves[count++] = Move.of(row, column, row, target, Move.PROMOTION_NONE, false);
+		return count;
+	}
+
+	private static boolean isPiece(ChessMatch match, int row, int column, Color color, int type) {
+		if (!exists(row, column)) {
+			return false;
+		}
+		ChessPiece p = match.getPiece(row, column);
+		return p != null && p.getColor() == color && PieceType.of(p) == type;
+	}
+
+	private static boolean exists(int row, int column) {
+		return row >= 0 && row < SIZE && column >= 0 && column < SIZE;
+	}
+
+	static Color opponent(Color color) {
+		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+	}
+}
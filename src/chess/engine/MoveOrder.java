@@ -0,0 +1,64 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+
+/**
+ * Orders generated moves in place: promotions and captures first, captures by
+ * most valuable victim and least valuable attacker.
+ */
+final class MoveOrder {
+
+	private MoveOrder() {
+	}
+
+	/**
+	 * Scores each move of a buffer for ordering.
+	 *
+	 * @param match  The chess match.
+	 * @param moves  The move buffer.
+	 * @param scores The buffer receiving the ordering scores.
+	 * @param count  The number of moves in the buffer.
+	 */
+	static void score(ChessMatch match, int[] moves, int[] scores, int count) {
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			int score = 0;
+			if (Move.isCapture(move)) {
+				ChessPiece victim = match.getPiece(Move.targetRow(move), Move.targetColumn(move));
+				ChessPiece attacker = match.getPiece(Move.sourceRow(move), Move.sourceColumn(move));
+				int victimValue = victim == null ? Evaluator.PIECE_VALUES[PieceType.PAWN] : Evaluator.value(victim);
+				score = 10_000 + victimValue * 10 - PieceType.of(attacker);
+			}
+			if (Move.promotion(move) == Move.PROMOTION_QUEEN) {
+				score += 9_000;
+			}
+			scores[i] = score;
+		}
+	}
+
+	/**
+	 * Swaps the best scored move among the remaining ones into position index.
+	 *
+	 * @param moves  The move buffer.
+	 * @param scores The ordering scores.
+	 * @param index  The position to fill.
+	 * @param count  The number of moves in the buffer.
+	 * @return The move now at position index.
+	 */
+	static int pickNext(int[] moves, int[] scores, int index, int count) {
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = moves[best];
+		moves[best] = moves[index];
+		moves[index] = move;
+		int score = scores[best];
+		scores[best] = scores[index];
+		scores[index] = score;
+		return move;
+	}
+}
@@ -0,0 +1,80 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.variant.VariantMoveGenerator;
+import chess.variant.VariantPosition;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth, the standard
+ * check of a move generator against published counts and a load test of move
+ * generation and make/unmake without any search around it.
+ */
+public final class Perft {
+
+	private static final int MAX_MOVES = 256;
+
+	private Perft() {
+	}
+
+	/**
+	 * Counts the legal move sequences of the given length from the current
+	 * position. The match is left in the position it started from.
+	 *
+	 * @param match The chess match.
+	 * @param depth The depth in plies.
+	 * @return The number of leaf nodes.
+	 */
+	public static long perft(ChessMatch match, int depth) {
+		return perft(match, depth, new int[depth + 1][MAX_MOVES]);
+	}
+
+	private static long perft(ChessMatch match, int depth, int[][] buffers) {
+		if (depth == 0) {
+			return 1;
+		}
+		int[] moves = buffers[depth];
+		int count = MoveGenerator.generateMoves(match, moves);
+		Color color = match.getCurrentPlayer();
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+			if (!MoveGenerator.isInCheck(match, color)) {
+				nodes += perft(match, depth - 1, buffers);
+			}
+			match.undoSearchMove();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Counts the legal move sequences of the given length from a variant
+	 * position. The position is left as it started.
+	 *
+	 * @param position The variant position.
+	 * @param depth    The depth in plies.
+	 * @return The number of leaf nodes.
+	 */
+	public static long perft(VariantPosition position, int depth) {
+		return perft(position, depth, new int[depth + 1][VariantMoveGenerator.MAX_MOVES]);
+	}
+
+	private static long perft(VariantPosition position, int depth, int[][] buffers) {
+		if (depth == 0) {
+			return 1;
+		}
+		int[] moves = buffers[depth];
+		int count = VariantMoveGenerator.generateMoves(position, moves);
+		boolean black = position.isBlackToMove();
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(moves[i]);
+			if (!position.isInCheck(black)) {
+				nodes += perft(position, depth - 1, buffers);
+			}
+			position.undoMove();
+		}
+		return nodes;
+	}
+}
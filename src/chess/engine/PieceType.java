@@ -0,0 +1,49 @@
+package chess.engine;
+
+import chess.ChessPiece;
+import chess.pieces.Bishop;
+import chess.pieces.King;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+import chess.pieces.Queen;
+
+/**
+ * Maps chess pieces to small integer types used to index engine tables.
+ */
+public final class PieceType {
+
+	public static final int PAWN = 0;
+	public static final int KNIGHT = 1;
+	public static final int BISHOP = 2;
+	public static final int ROOK = 3;
+	public static final int QUEEN = 4;
+	public static final int KING = 5;
+
+	private PieceType() {
+	}
+
+	/**
+	 * Retrieves the type index of a piece.
+	 *
+	 * @param piece The chess piece.
+	 * @return One of the type constants of this class.
+	 */
+	public static int of(ChessPiece piece) {
+		if (piece instanceof Pawn) {
+			return PAWN;
+		}
+		if (piece instanceof Knight) {
+			return KNIGHT;
+		}
+		if (piece instanceof Bishop) {
+			return BISHOP;
+		}
+		if (piece instanceof Queen) {
+			return QUEEN;
+		}
+		if (piece instanceof King) {
+			return KING;
+		}
+		return ROOK;
+	}
+}
@@ -0,0 +1,202 @@
+package chess.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import chess.ChessMatch;
+import chess.Color;
+
+/**
+ * Opening book reader for the Polyglot .bin format. The file is memory-mapped
+ * and its sorted 16-byte entries (key, move, weight, learn) are looked up with
+ * a binary search, so a lookup only allocates its move buffer and the heap
+ * does not grow with the size of the book.
+ *
+ * A book may be shared between threads as long as each passes its own match,
+ * since lookups only read the mapping and try moves on the given match.
+ */
+public class PolyglotBook implements Closeable {
+
+	public static final int ENTRY_SIZE = 16;
+
+	/**
+	 * Entries per mapped segment, keeping every segment below the 2 GB limit of
+	 * a single MappedByteBuffer.
+	 */
+	private static final long SEGMENT_ENTRIES = 1L << 26;
+	private static final int MAX_MOVES = 256;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long entryCount;
+	private final Zobrist zobrist;
+
+	/**
+	 * Opens a Polyglot book.
+	 *
+	 * @param file    The .bin book file.
+	 * @param zobrist The hasher, which must use the Polyglot Random64 keys.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 */
+	public PolyglotBook(Path file, Zobrist zobrist) throws IOException {
+		this.zobrist = zobrist;
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		entryCount = channel.size() / ENTRY_SIZE;
+		int segmentCount = (int) ((entryCount + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES);
+		segments = new MappedByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			long first = i * SEGMENT_ENTRIES;
+			long size = Math.min(SEGMENT_ENTRIES, entryCount - first) * ENTRY_SIZE;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * ENTRY_SIZE, size);
+			segments[i].order(ByteOrder.BIG_ENDIAN);
+		}
+	}
+
+	/**
+	 * Retrieves the number of entries in the book.
+	 *
+	 * @return The entry count.
+	 */
+	public long size() {
+		return entryCount;
+	}
+
+	/**
+	 * Picks a book move for the current position, at random in proportion to
+	 * the entry weights. Entries that are not legal in the position, such as
+	 * those of a hash collision, are left out of the draw.
+	 *
+	 * @param match  The chess match.
+	 * @param random The random source.
+	 * @return A legal book move, or {@link Move#NONE} if the position is not in
+	 *         the book.
+	 */
+	public int selectMove(ChessMatch match, Random random) {
+		long key = zobrist.hash(match);
+		long first = firstEntry(key);
+		int[] legalMoves = new int[MAX_MOVES];
+		long totalWeight = 0;
+		for (long i = first; i < entryCount && key(i) == key; i++) {
+			if (toLegalMove(match, move(i), legalMoves) != Move.NONE) {
+				totalWeight += weight(i);
+			}
+		}
+		if (totalWeight == 0) {
+			return bestMove(match);
+		}
+		long pick = (long) (random.nextDouble() * totalWeight);
+		for (long i = first; i < entryCount && key(i) == key; i++) {
+			int move = toLegalMove(match, move(i), legalMoves);
+			if (move != Move.NONE) {
+				pick -= weight(i);
+				if (pick < 0) {
+					return move;
+				}
+			}
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Retrieves the book move with the highest weight for the current position.
+	 *
+	 * @param match The chess match.
+	 * @return A legal book move, or {@link Move#NONE} if the position is not in
+	 *         the book.
+	 */
+	public int bestMove(ChessMatch match) {
+		long key = zobrist.hash(match);
+		int[] legalMoves = new int[MAX_MOVES];
+		int best = Move.NONE;
+		int bestWeight = -1;
+		for (long i = firstEntry(key); i < entryCount && key(i) == key; i++) {
+			int move = toLegalMove(match, move(i), legalMoves);
+			if (move != Move.NONE && weight(i) > bestWeight) {
+				best = move;
+				bestWeight = weight(i);
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Binary search for the first entry whose key is not less than the given key.
+	 */
+	private long firstEntry(long key) {
+		long low = 0;
+		long high = entryCount;
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (Long.compareUnsigned(key(mid), key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private long key(long index) {
+		return segments[(int) (index / SEGMENT_ENTRIES)].getLong((int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE);
+	}
+
+	private int move(long index) {
+		return segments[(int) (index / SEGMENT_ENTRIES)].getShort((int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE + 8)
+				& 0xFFFF;
+	}
+
+	private int weight(long index) {
+		return segments[(int) (index / SEGMENT_ENTRIES)].getShort((int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE + 10)
+				& 0xFFFF;
+	}
+
+	/**
+	 * Converts a Polyglot move to an engine move, checking that it is among the
+	 * legal moves of the position. Polyglot encodes castling as the king
+	 * capturing its own rook, which is mapped to the two-square king move
+	 * unless the match follows the same convention for Chess960.
+	 */
+	private static int toLegalMove(ChessMatch match, int bookMove, int[] legalMoves) {
+		int sourceRow = 7 - ((bookMove >>> 9) & 0x7);
+		int sourceColumn = (bookMove >>> 6) & 0x7;
+		int targetRow = 7 - ((bookMove >>> 3) & 0x7);
+		int targetColumn = bookMove & 0x7;
+		int promotion = (bookMove >>> 12) & 0x7;
+
+		if (!match.isChess960() && sourceColumn == 4 && sourceRow == targetRow && (targetColumn == 7 || targetColumn == 0)
+				&& match.getPiece(sourceRow, sourceColumn) != null
+				&& PieceType.of(match.getPiece(sourceRow, sourceColumn)) == PieceType.KING) {
+			targetColumn = targetColumn == 7 ? 6 : 2;
+		}
+
+		int count = MoveGenerator.generateMoves(match, legalMoves);
+		for (int i = 0; i < count; i++) {
+			int move = legalMoves[i];
+			if (Move.sourceRow(move) == sourceRow && Move.sourceColumn(move) == sourceColumn
+					&& Move.targetRow(move) == targetRow && Move.targetColumn(move) == targetColumn
+					&& Move.promotion(move) == promotion) {
+				return isLegal(match, move) ? move : Move.NONE;
+			}
+		}
+		return Move.NONE;
+	}
+
+	private static boolean isLegal(ChessMatch match, int move) {
+		Color color = match.getCurrentPlayer();
+		match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+		boolean legal = !MoveGenerator.isInCheck(match, color);
+		match.undoSearchMove();
+		return legal;
+	}
+}
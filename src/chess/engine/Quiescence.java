@@ -0,0 +1,160 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Quiescence search: extends the leaves of the main search with captures and
+ * promotions only, until the position is quiet, so that the static evaluation
+ * is never taken in the middle of an exchange.
+ */
+public class Quiescence {
+
+	public static final long DEFAULT_NODE_LIMIT = 200_000;
+
+	/**
+	 * Margin added to the captured material before a capture is discarded by
+	 * delta pruning.
+	 */
+	public static final int DELTA_MARGIN = 200;
+
+	private static final int MAX_DEPTH = 64;
+	private static final int MAX_MOVES = 256;
+
+	private final Evaluator evaluator;
+	private final int[][] moves = new int[MAX_DEPTH][MAX_MOVES];
+	private final int[][] scores = new int[MAX_DEPTH][MAX_MOVES];
+	private long nodeLimit;
+	private long nodes;
+
+	/**
+	 * Constructs a quiescence search with the default node cap.
+	 *
+	 * @param evaluator The evaluator used for the stand-pat score.
+	 */
+	public Quiescence(Evaluator evaluator) {
+		this(evaluator, DEFAULT_NODE_LIMIT);
+	}
+
+	/**
+	 * Constructs a quiescence search.
+	 *
+	 * @param evaluator The evaluator used for the stand-pat score.
+	 * @param nodeLimit The maximum number of quiescence nodes per search.
+	 */
+	public Quiescence(Evaluator evaluator, long nodeLimit) {
+		this.evaluator = evaluator;
+		this.nodeLimit = nodeLimit;
+	}
+
+	public long getNodeLimit() {
+		return nodeLimit;
+	}
+
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Retrieves the number of quiescence nodes visited since the last reset.
+	 *
+	 * @return The node count.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Resets the node counter; called at the start of every root search.
+	 */
+	public void reset() {
+		nodes = 0;
+	}
+
+	/**
+	 * Searches captures and promotions of the side to move.
+	 *
+	 * @param match The chess match, restored to its original state on return.
+	 * @param alpha The lower bound of the search window.
+	 * @param beta  The upper bound of the search window.
+	 * @param ply   The distance from the root, used for mate scores.
+	 * @return The score from the point of view of the side to move.
+	 */
+	public int search(ChessMatch match, int alpha, int beta, int ply) {
+		return search(match, alpha, beta, ply, 0);
+	}
+
+	private int search(ChessMatch match, int alpha, int beta, int ply, int depth) {
+		nodes++;
+		Color color = match.getCurrentPlayer();
+		boolean inCheck = MoveGenerator.isInCheck(match, color);
+
+		int standPat = evaluator.evaluate(match);
+		if (!inCheck) {
+			if (standPat >= beta) {
+				return standPat;
+			}
+			if (standPat > alpha) {
+				alpha = standPat;
+			}
+		}
+		if (nodes >= nodeLimit || depth >= MAX_DEPTH) {
+			return inCheck ? standPat : alpha;
+		}
+
+		// In check every evasion has to be tried, not just the captures
+		int[] buffer = moves[depth];
+		int[] order = scores[depth];
+		int count = inCheck ? MoveGenerator.generateMoves(match, buffer)
+				: MoveGenerator.generateCaptures(match, buffer);
+		MoveOrder.score(match, buffer, order, count);
+
+		boolean anyLegal = false;
+		for (int i = 0; i < count; i++) {
+			int move = MoveOrder.pickNext(buffer, order, i, count);
+
+			if (!inCheck && isFutile(match, move, standPat, alpha)) {
+				continue;
+			}
+
+			match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+			if (MoveGenerator.isInCheck(match, color)) {
+				match.undoSearchMove();
+				continue;
+			}
+			anyLegal = true;
+			int score = -search(match, -beta, -alpha, ply + 1, depth + 1);
+			match.undoSearchMove();
+
+			if (score >= beta) {
+				return score;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+		}
+
+		if (inCheck && !anyLegal) {
+			return -Search.MATE + ply;
+		}
+		return alpha;
+	}
+
+	/**
+	 * Delta pruning: a capture that cannot raise the score up to alpha, even
+	 * with a safety margin, is not worth searching.
+	 */
+	private boolean isFutile(ChessMatch match, int move, int standPat, int alpha) {
+		int gain = 0;
+		if (Move.isCapture(move)) {
+			ChessPiece victim = match.getPiece(Move.targetRow(move), Move.targetColumn(move));
+			// An empty target square means an en passant capture
+			gain = victim == null ? Evaluator.PIECE_VALUES[PieceType.PAWN] : Evaluator.value(victim);
+		}
+		if (Move.promotion(move) != Move.PROMOTION_NONE) {
+			gain += Evaluator.PIECE_VALUES[PieceType.QUEEN] - Evaluator.PIECE_VALUES[PieceType.PAWN];
+		}
+		return standPat + gain + DELTA_MARGIN <= alpha;
+	}
+}
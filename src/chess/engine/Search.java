@@ -0,0 +1,410 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Color;
+
+/**
+ * Iterative deepening alpha-beta search over a {@link ChessMatch}, with a
+ * transposition table and a {@link Quiescence} stage at the leaves. A search
+ * runs to a fixed depth, or until its {@link TimeManager} or {@link #stop()}
+ * ends it.
+ */
+public class Search {
+
+	public static final int MATE = 100_000;
+	public static final int INFINITY = MATE + 1;
+	public static final int MAX_DEPTH = 63;
+
+	private static final int MAX_PLY = 64;
+	private static final int MAX_MOVES = 256;
+	private static final int MATE_BOUND = MATE - MAX_PLY;
+	private static final int CHECK_INTERVAL = 1023;
+
+	private final Evaluator evaluator;
+	private final Quiescence quiescence;
+	private final TranspositionTable table;
+	private final Zobrist zobrist;
+	private final int[][] moves = new int[MAX_PLY][MAX_MOVES];
+	private final int[][] scores = new int[MAX_PLY][MAX_MOVES];
+	private volatile TimeManager timeManager;
+	private SearchListener listener;
+	private volatile boolean stopped;
+	private long nodes;
+	private long nodeLimit = Long.MAX_VALUE;
+	private long tableProbes;
+	private long tableHits;
+	private int bestMove;
+	private int rootMove;
+	private int bestScore;
+	private int completedDepth;
+
+	/**
+	 * Constructs a search with the default evaluator and a private
+	 * transposition table.
+	 */
+	public Search() {
+		this(new Evaluator());
+	}
+
+	/**
+	 * Constructs a search with the given evaluator and a private transposition
+	 * table.
+	 *
+	 * @param evaluator The evaluator used at the leaves.
+	 */
+	public Search(Evaluator evaluator) {
+		this(evaluator, new TranspositionTable(), new Zobrist());
+	}
+
+	/**
+	 * Constructs a search.
+	 *
+	 * @param evaluator The evaluator used at the leaves.
+	 * @param table     The transposition table, possibly shared with other
+	 *                  searches.
+	 * @param zobrist   The position hasher used for the table.
+	 */
+	public Search(Evaluator evaluator, TranspositionTable table, Zobrist zobrist) {
+		this.evaluator = evaluator;
+		this.quiescence = new Quiescence(evaluator);
+		this.table = table;
+		this.zobrist = zobrist;
+	}
+
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+
+	public Quiescence getQuiescence() {
+		return quiescence;
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Retrieves the number of nodes of the last search, quiescence included.
+	 *
+	 * @return The node count.
+	 */
+	public long getNodes() {
+		return nodes + quiescence.getNodes();
+	}
+
+	/**
+	 * Retrieves the share of transposition table probes of the last search
+	 * that found an entry.
+	 *
+	 * @return The hit rate, from 0 to 1.
+	 */
+	public double getTableHitRate() {
+		return tableProbes == 0 ? 0 : (double) tableHits / tableProbes;
+	}
+
+	/**
+	 * Retrieves the score of the best move found by the last search.
+	 *
+	 * @return The score from the point of view of the side to move.
+	 */
+	public int getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Retrieves the depth of the last fully completed iteration.
+	 *
+	 * @return The completed depth in plies.
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * Sets the listener notified after every completed iteration.
+	 *
+	 * @param listener The listener, or null for none.
+	 */
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the time limits of the running or next search. A running search
+	 * without limits, such as a ponder search, becomes a timed one.
+	 *
+	 * @param timeManager The time manager, or null for no time limit.
+	 */
+	public void setTimeManager(TimeManager timeManager) {
+		this.timeManager = timeManager;
+	}
+
+	/**
+	 * Asks a running search, possibly on another thread, to stop as soon as
+	 * possible. The best move of the last completed iteration is kept.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	public long getNodeLimit() {
+		return nodeLimit;
+	}
+
+	/**
+	 * Limits the number of nodes of each search, quiescence included. The limit
+	 * is checked along with the time, so a search can overshoot it by about a
+	 * thousand main search nodes.
+	 *
+	 * @param nodeLimit The node limit, or {@link Long#MAX_VALUE} for none.
+	 */
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Searches the match to a fixed depth and returns the best move found.
+	 *
+	 * @param match The chess match, restored to its original state on return.
+	 * @param depth The search depth in plies, at least 1.
+	 * @return The best move, or {@link Move#NONE} if there is no legal move.
+	 */
+	public int search(ChessMatch match, int depth) {
+		return search(match, depth, null);
+	}
+
+	/**
+	 * Searches the match with iterative deepening, until the given depth is
+	 * completed, the time manager ends the search or {@link #stop()} is called.
+	 *
+	 * @param match       The chess match, restored to its original state on
+	 *                    return.
+	 * @param maxDepth    The maximum depth in plies.
+	 * @param timeManager The time limits, or null to search without limit.
+	 * @return The best move, or {@link Move#NONE} if there is no legal move.
+	 */
+	public int search(ChessMatch match, int maxDepth, TimeManager timeManager) {
+		this.timeManager = timeManager;
+		stopped = false;
+		nodes = 0;
+		tableProbes = 0;
+		tableHits = 0;
+		quiescence.reset();
+		bestMove = Move.NONE;
+		bestScore = 0;
+		completedDepth = 0;
+		long start = System.nanoTime();
+
+		int stableIterations = 0;
+		for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+			int previous = bestMove;
+			rootMove = Move.NONE;
+			SearchIterationEvent event = new SearchIterationEvent();
+			event.begin();
+			long iterationStart = System.nanoTime();
+			long iterationNodes = getNodes();
+			long iterationProbes = tableProbes;
+			long iterationHits = tableHits;
+			int score = alphaBeta(match, depth, -INFINITY, INFINITY, 0);
+			if (stopped) {
+				break;
+			}
+			event.end();
+			if (event.shouldCommit()) {
+				event.depth = depth;
+				event.nodes = getNodes() - iterationNodes;
+				long nanos = Math.max(1, System.nanoTime() - iterationStart);
+				event.nps = event.nodes * 1_000_000_000L / nanos;
+				long probes = tableProbes - iterationProbes;
+				event.ttHitRate = probes == 0 ? 0 : (double) (tableHits - iterationHits) / probes;
+				event.score = score;
+				event.bestMove = Move.toString(rootMove);
+				event.commit();
+			}
+			bestMove = rootMove;
+			bestScore = score;
+			completedDepth = depth;
+			stableIterations = bestMove == previous ? stableIterations + 1 : 0;
+			if (listener != null) {
+				listener.iterationCompleted(depth, score, getNodes(), (System.nanoTime() - start) / 1_000_000,
+						bestMove);
+			}
+
+			if (bestMove == Move.NONE || Math.abs(score) >= MATE_BOUND) {
+				break;
+			}
+			TimeManager limits = this.timeManager;
+			if (limits != null && limits.shouldStop(stableIterations)) {
+				break;
+			}
+		}
+		if (bestMove == Move.NONE) {
+			bestMove = firstLegalMove(match);
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Retrieves the expected reply to a move from the transposition table, to
+	 * be pondered on while the opponent thinks.
+	 *
+	 * @param match The chess match, restored to its original state on return.
+	 * @param move  The move about to be played.
+	 * @return The expected reply, or {@link Move#NONE} if none is known.
+	 */
+	public int ponderMove(ChessMatch match, int move) {
+		if (move == Move.NONE) {
+			return Move.NONE;
+		}
+		match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+		try {
+			int reply = TranspositionTable.move(table.probe(zobrist.hash(match)));
+			return isLegal(match, reply) ? reply : Move.NONE;
+		} finally {
+			match.undoSearchMove();
+		}
+	}
+
+	private int alphaBeta(ChessMatch match, int depth, int alpha, int beta, int ply) {
+		if (depth <= 0 || ply >= MAX_PLY - 1) {
+			return quiescence.search(match, alpha, beta, ply);
+		}
+		if ((++nodes & CHECK_INTERVAL) == 0) {
+			TimeManager limits = timeManager;
+			if (limits != null && limits.isHardLimitReached() || getNodes() >= nodeLimit) {
+				stopped = true;
+			}
+		}
+		if (stopped) {
+			return 0;
+		}
+
+		long hash = zobrist.hash(match);
+		long entry = table.probe(hash);
+		int hashMove = Move.NONE;
+		tableProbes++;
+		if (entry != 0) {
+			tableHits++;
+			hashMove = TranspositionTable.move(entry);
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.BOUND_EXACT
+						|| bound == TranspositionTable.BOUND_LOWER && score >= beta
+						|| bound == TranspositionTable.BOUND_UPPER && score <= alpha) {
+					return score;
+				}
+			}
+		}
+
+		Color color = match.getCurrentPlayer();
+		int[] buffer = moves[ply];
+		int[] order = scores[ply];
+		int count = MoveGenerator.generateMoves(match, buffer);
+		MoveOrder.score(match, buffer, order, count);
+		for (int i = 0; i < count; i++) {
+			if (buffer[i] == hashMove) {
+				order[i] = Integer.MAX_VALUE;
+			}
+		}
+
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestLocal = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = MoveOrder.pickNext(buffer, order, i, count);
+			match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+			if (MoveGenerator.isInCheck(match, color)) {
+				match.undoSearchMove();
+				continue;
+			}
+			int score = -alphaBeta(match, depth - 1, -beta, -alpha, ply + 1);
+			match.undoSearchMove();
+			if (stopped) {
+				return 0;
+			}
+
+			if (score > best) {
+				best = score;
+				bestLocal = move;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+			if (score >= beta) {
+				break;
+			}
+		}
+
+		if (bestLocal == Move.NONE) {
+			return MoveGenerator.isInCheck(match, color) ? -MATE + ply : 0;
+		}
+
+		if (ply == 0) {
+			rootMove = bestLocal;
+		}
+		int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+				: best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+		table.store(hash, bestLocal, depth, bound, toTable(best, ply));
+		return best;
+	}
+
+	private int firstLegalMove(ChessMatch match) {
+		int count = MoveGenerator.generateMoves(match, moves[0]);
+		for (int i = 0; i < count; i++) {
+			if (isLegal(match, moves[0][i])) {
+				return moves[0][i];
+			}
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Checks that a move, typically read from the table, is legal in the match.
+	 */
+	private boolean isLegal(ChessMatch match, int move) {
+		if (move == Move.NONE) {
+			return false;
+		}
+		int[] buffer = moves[MAX_PLY - 1];
+		int count = MoveGenerator.generateMoves(match, buffer);
+		for (int i = 0; i < count; i++) {
+			if (buffer[i] == move) {
+				Color color = match.getCurrentPlayer();
+				match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+				boolean legal = !MoveGenerator.isInCheck(match, color);
+				match.undoSearchMove();
+				return legal;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Converts a mate score relative to the root into one relative to the node,
+	 * so that it stays valid when found again at another ply.
+	 */
+	private static int toTable(int score, int ply) {
+		if (score >= MATE_BOUND) {
+			return score + ply;
+		}
+		if (score <= -MATE_BOUND) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		if (score >= MATE_BOUND) {
+			return score - ply;
+		}
+		if (score <= -MATE_BOUND) {
+			return score + ply;
+		}
+		return score;
+	}
+}
@@ -0,0 +1,43 @@
+package chess.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one completed iteration of the iterative deepening
+ * {@link Search}. The event duration is the time spent in the iteration. It can
+ * be switched on and off on its own with the setting
+ * {@code chess.SearchIteration#enabled}.
+ */
+@Name("chess.SearchIteration")
+@Label("Search Iteration")
+@Category("Chess")
+@Description("One iterative deepening iteration of the engine search")
+@StackTrace(false)
+public final class SearchIterationEvent extends Event {
+
+	@Label("Depth")
+	public int depth;
+
+	@Label("Nodes")
+	@Description("Nodes searched in the iteration, quiescence included")
+	public long nodes;
+
+	@Label("Nodes per Second")
+	public long nps;
+
+	@Label("Transposition Table Hit Rate")
+	@Description("Share of main search probes that found an entry, from 0 to 1")
+	public double ttHitRate;
+
+	@Label("Score")
+	@Description("Score in centipawns from the side to move")
+	public int score;
+
+	@Label("Best Move")
+	public String bestMove;
+}
@@ -0,0 +1,18 @@
+package chess.engine;
+
+/**
+ * Receives progress reports from a {@link Search}.
+ */
+public interface SearchListener {
+
+	/**
+	 * Called after every completed iteration of iterative deepening.
+	 *
+	 * @param depth    The completed depth in plies.
+	 * @param score    The score of the best move, from the side to move.
+	 * @param nodes    The nodes searched so far.
+	 * @param millis   The time spent so far in milliseconds.
+	 * @param bestMove The best move of the iteration.
+	 */
+	void iterationCompleted(int depth, int score, long nodes, long millis, int bestMove);
+}
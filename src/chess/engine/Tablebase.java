@@ -0,0 +1,307 @@
+package chess.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Endgame tablebase prober reading win/draw/loss (.wdl) and distance to
+ * zeroing (.dtz) tables from a local directory, named after the material,
+ * e.g. "KQvK.wdl". The tables use a plain format of this project, not the
+ * compressed Syzygy one, whose .rtbw and .rtbz files are not read.
+ *
+ * Tables are uncompressed, one byte per position. The index of a position is
+ * the side to move followed by the square (row * 8 + column) of every piece,
+ * white pieces first, each side ordered K, Q, R, B, N, P and by square for
+ * pieces of the same type. WDL bytes hold the {@link Wdl} ordinal, DTZ bytes
+ * the distance in plies; 255 marks a position that is not in the table.
+ * Positions with more black than white material are probed in the color
+ * swapped table. Files are memory-mapped in segments and only the most
+ * recently used segments are kept mapped.
+ */
+public class Tablebase implements Closeable {
+
+	public static final String WDL_SUFFIX = ".wdl";
+	public static final String DTZ_SUFFIX = ".dtz";
+	public static final int UNKNOWN = 255;
+
+	public static final int DEFAULT_MAX_PIECES = 5;
+	public static final int DEFAULT_CACHED_SEGMENTS = 64;
+
+	private static final long SEGMENT_SIZE = 1L << 24;
+	private static final String PIECE_LETTERS = "PNBRQK";
+	private static final int[] TYPE_ORDER = { PieceType.KING, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+			PieceType.KNIGHT, PieceType.PAWN };
+	private static final int MAX_MOVES = 256;
+
+	/**
+	 * Game-theoretic value of a position for the side to move. Cursed wins and
+	 * blessed losses are decided by the fifty-move rule.
+	 */
+	public enum Wdl {
+		LOSS, BLESSED_LOSS, DRAW, CURSED_WIN, WIN;
+
+		/**
+		 * Retrieves the value of the same position from the opponent's side.
+		 *
+		 * @return The negated value.
+		 */
+		public Wdl negate() {
+			return values()[4 - ordinal()];
+		}
+	}
+
+	private final Path directory;
+	private final int maxPieces;
+	private final Map<String, FileChannel> channels = new HashMap<>();
+	private final Map<String, MappedByteBuffer> segments;
+	private final int[] moves = new int[MAX_MOVES];
+	private final int[] squares = new int[32];
+
+	/**
+	 * Constructs a prober with the default piece limit and segment cache size.
+	 *
+	 * @param directory The directory holding the table files.
+	 */
+	public Tablebase(Path directory) {
+		this(directory, DEFAULT_MAX_PIECES, DEFAULT_CACHED_SEGMENTS);
+	}
+
+	/**
+	 * Constructs a prober.
+	 *
+	 * @param directory      The directory holding the table files.
+	 * @param maxPieces      The largest piece count, kings included, to probe.
+	 * @param cachedSegments The number of mapped segments kept in the LRU cache.
+	 */
+	public Tablebase(Path directory, int maxPieces, int cachedSegments) {
+		this.directory = directory;
+		this.maxPieces = maxPieces;
+		this.segments = new LinkedHashMap<>(cachedSegments * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, MappedByteBuffer> eldest) {
+				return size() > cachedSegments;
+			}
+		};
+	}
+
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+	/**
+	 * Checks if the match is small enough to be probed: no more than the
+	 * supported piece count, and no castling or en passant possible.
+	 *
+	 * @param match The chess match.
+	 * @return true if the position may be found in the tables.
+	 */
+	public boolean canProbe(ChessMatch match) {
+		if (match.getPieceCount() > maxPieces || match.getEnPassant() != null) {
+			return false;
+		}
+		for (Color color : Color.values()) {
+			if (match.hasCastlingRight(color, true) || match.hasCastlingRight(color, false)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Probes the win/draw/loss value of the current position.
+	 *
+	 * @param match The chess match.
+	 * @return The value for the side to move, or null if it is not available.
+	 * @throws IOException If a table file cannot be read.
+	 */
+	public synchronized Wdl probeWdl(ChessMatch match) throws IOException {
+		if (!canProbe(match)) {
+			return null;
+		}
+		if (match.getPieceCount() == 2) {
+			return Wdl.DRAW;
+		}
+		int value = probe(match, WDL_SUFFIX);
+		return value == UNKNOWN || value >= Wdl.values().length ? null : Wdl.values()[value];
+	}
+
+	/**
+	 * Probes the distance to zeroing of the current position: the number of
+	 * plies until the next capture or pawn move with best play.
+	 *
+	 * @param match The chess match.
+	 * @return The distance in plies, or {@link #UNKNOWN}.
+	 * @throws IOException If a table file cannot be read.
+	 */
+	public synchronized int probeDtz(ChessMatch match) throws IOException {
+		if (!canProbe(match)) {
+			return UNKNOWN;
+		}
+		if (match.getPieceCount() == 2) {
+			return 0;
+		}
+		return probe(match, DTZ_SUFFIX);
+	}
+
+	/**
+	 * Picks the move that keeps the best tablebase value, preferring the
+	 * fastest progress when winning and the slowest when losing.
+	 *
+	 * @param match The chess match, restored to its original state on return.
+	 * @return The best move, or {@link Move#NONE} if the position cannot be
+	 *         resolved from the tables.
+	 * @throws IOException If a table file cannot be read.
+	 */
+	public synchronized int bestMove(ChessMatch match) throws IOException {
+		if (!canProbe(match)) {
+			return Move.NONE;
+		}
+		Color color = match.getCurrentPlayer();
+		int count = MoveGenerator.generateMoves(match, moves);
+		int bestMove = Move.NONE;
+		Wdl bestWdl = null;
+		int bestDtz = 0;
+		for (int i = 0; i < count; i++) {
+			int move = moves[i];
+			match.searchMove(Move.source(move), Move.target(move), Move.promotionType(move));
+			try {
+				if (MoveGenerator.isInCheck(match, color)) {
+					continue;
+				}
+				Wdl reply = probeWdl(match);
+				if (reply == null) {
+					continue;
+				}
+				Wdl wdl = reply.negate();
+				// Captures and pawn moves reset the counter, so they count as zero
+				boolean zeroing = Move.isCapture(move)
+						|| PieceType.of(match.getPiece(Move.targetRow(move), Move.targetColumn(move))) == PieceType.PAWN
+						|| Move.promotion(move) != Move.PROMOTION_NONE;
+				int dtz = zeroing ? 0 : probeDtz(match);
+				if (bestWdl == null || wdl.compareTo(bestWdl) > 0
+						|| wdl == bestWdl && (wdl.compareTo(Wdl.DRAW) > 0 ? dtz < bestDtz : dtz > bestDtz)) {
+					bestMove = move;
+					bestWdl = wdl;
+					bestDtz = dtz;
+				}
+			} finally {
+				match.undoSearchMove();
+			}
+		}
+		return bestMove;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		segments.clear();
+		for (FileChannel channel : channels.values()) {
+			if (channel != null) {
+				channel.close();
+			}
+		}
+		channels.clear();
+	}
+
+	private int probe(ChessMatch match, String suffix) throws IOException {
+		String white = material(match, Color.WHITE);
+		String black = material(match, Color.BLACK);
+		boolean swapped = false;
+		String name = white + "v" + black + suffix;
+		FileChannel channel = channel(name);
+		if (channel == null) {
+			name = black + "v" + white + suffix;
+			channel = channel(name);
+			swapped = true;
+		}
+		if (channel == null) {
+			return UNKNOWN;
+		}
+		long index = index(match, swapped);
+		if (index >= channel.size()) {
+			return UNKNOWN;
+		}
+		return segment(name, channel, index / SEGMENT_SIZE).get((int) (index % SEGMENT_SIZE)) & 0xFF;
+	}
+
+	/**
+	 * Computes the table index of the position. When the table is color
+	 * swapped, black pieces are indexed as white ones on the mirrored board.
+	 */
+	private long index(ChessMatch match, boolean swapped) {
+		Color first = swapped ? Color.BLACK : Color.WHITE;
+		long index = match.getCurrentPlayer() == first ? 0 : 1;
+		int count = 0;
+		for (int side = 0; side < 2; side++) {
+			Color color = side == 0 ? first : MoveGenerator.opponent(first);
+			for (int type : TYPE_ORDER) {
+				for (int row = 0; row < 8; row++) {
+					for (int column = 0; column < 8; column++) {
+						ChessPiece p = match.getPiece(row, column);
+						if (p != null && p.getColor() == color && PieceType.of(p) == type) {
+							squares[count++] = (swapped ? 7 - row : row) * 8 + column;
+						}
+					}
+				}
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			index = index * 64 + squares[i];
+		}
+		return index;
+	}
+
+	private MappedByteBuffer segment(String name, FileChannel channel, long segment) throws IOException {
+		String key = name + "#" + segment;
+		MappedByteBuffer buffer = segments.get(key);
+		if (buffer == null) {
+			long position = segment * SEGMENT_SIZE;
+			long size = Math.min(SEGMENT_SIZE, channel.size() - position);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+			segments.put(key, buffer);
+		}
+		return buffer;
+	}
+
+	private FileChannel channel(String name) throws IOException {
+		if (channels.containsKey(name)) {
+			return channels.get(name);
+		}
+		Path file = directory.resolve(name);
+		FileChannel channel = Files.isRegularFile(file) ? FileChannel.open(file, StandardOpenOption.READ) : null;
+		channels.put(name, channel);
+		return channel;
+	}
+
+	private static String material(ChessMatch match, Color color) {
+		int[] counts = new int[6];
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 8; column++) {
+				ChessPiece p = match.getPiece(row, column);
+				if (p != null && p.getColor() == color) {
+					counts[PieceType.of(p)]++;
+				}
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int type : TYPE_ORDER) {
+			for (int i = 0; i < counts[type]; i++) {
+				sb.append(PIECE_LETTERS.charAt(type));
+			}
+		}
+		return sb.toString();
+	}
+}
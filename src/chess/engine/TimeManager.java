@@ -0,0 +1,119 @@
+package chess.engine;
+
+/**
+ * Allots thinking time for one move from the clock. The soft deadline is the
+ * target time: no new iteration is started past it, and it shrinks once the
+ * best move has stayed the same for several iterations. The hard deadline
+ * aborts the search wherever it is.
+ */
+public class TimeManager {
+
+	public static final int DEFAULT_MOVES_TO_GO = 30;
+
+	/**
+	 * Time kept in reserve for communication and move overhead.
+	 */
+	public static final long MOVE_OVERHEAD_MILLIS = 30;
+
+	private static final int STABLE_ITERATIONS = 3;
+
+	private final long startNanos;
+	private final long softMillis;
+	private final long hardMillis;
+	private volatile boolean stopped;
+
+	/**
+	 * Constructs a time manager without limit, which only ends the search when
+	 * {@link #stop()} is called.
+	 */
+	public TimeManager() {
+		startNanos = System.nanoTime();
+		softMillis = Long.MAX_VALUE;
+		hardMillis = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Constructs a time manager for a clock.
+	 *
+	 * @param remainingMillis The time left on the clock.
+	 * @param incrementMillis The increment per move.
+	 * @param movesToGo       The moves left until the next time control, or 0
+	 *                        for sudden death.
+	 */
+	public TimeManager(long remainingMillis, long incrementMillis, int movesToGo) {
+		startNanos = System.nanoTime();
+		int moves = movesToGo > 0 ? Math.min(movesToGo, DEFAULT_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+		long available = Math.max(1, remainingMillis - MOVE_OVERHEAD_MILLIS);
+		long soft = available / moves + incrementMillis * 3 / 4;
+		hardMillis = Math.max(1, Math.min(available / 2, soft * 4));
+		softMillis = Math.max(1, Math.min(soft, hardMillis));
+	}
+
+	/**
+	 * Constructs a time manager for a fixed time per move.
+	 *
+	 * @param moveTimeMillis The time to use for this move.
+	 */
+	public TimeManager(long moveTimeMillis) {
+		startNanos = System.nanoTime();
+		hardMillis = Math.max(1, moveTimeMillis - MOVE_OVERHEAD_MILLIS);
+		softMillis = hardMillis;
+	}
+
+	public long getSoftLimit() {
+		return softMillis;
+	}
+
+	public long getHardLimit() {
+		return hardMillis;
+	}
+
+	/**
+	 * Retrieves the time elapsed since this manager was created.
+	 *
+	 * @return The elapsed time in milliseconds.
+	 */
+	public long elapsed() {
+		return (System.nanoTime() - startNanos) / 1_000_000;
+	}
+
+	/**
+	 * Ends the search under these limits as soon as possible, from any thread.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Checks if the search has to be aborted immediately.
+	 *
+	 * @return true once the hard deadline has passed or after {@link #stop()}.
+	 */
+	public boolean isHardLimitReached() {
+		return stopped || elapsed() >= hardMillis;
+	}
+
+	/**
+	 * Decides after a completed iteration whether to start another one. A best
+	 * move that keeps changing gets up to twice the soft time, a stable one
+	 * only half of it.
+	 *
+	 * @param stableIterations The number of consecutive iterations that
+	 *                         returned the same best move.
+	 * @return true if iterative deepening should stop.
+	 */
+	public boolean shouldStop(int stableIterations) {
+		if (stopped) {
+			return true;
+		}
+		long limit;
+		if (stableIterations >= STABLE_ITERATIONS) {
+			limit = softMillis / 2;
+		} else if (stableIterations == 0) {
+			limit = softMillis > Long.MAX_VALUE / 2 ? softMillis : softMillis * 2;
+		} else {
+			limit = softMillis;
+		}
+		return elapsed() >= Math.min(limit, hardMillis);
+	}
+}
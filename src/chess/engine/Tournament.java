@@ -0,0 +1,202 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+import chess.Color;
+
+/**
+ * Self-play match between two engine configurations, run entirely offline.
+ * Every opening is played twice with colors reversed, games run in parallel on
+ * a fixed pool, and each game is adjudicated by a {@link GameAdjudicator}. The
+ * tournament stops early once the SPRT reaches a decision.
+ */
+public class Tournament {
+
+	public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	private final EngineConfig first;
+	private final EngineConfig second;
+	private final List<String> openings;
+	private final int concurrency;
+	private int maxPlies = GameAdjudicator.DEFAULT_MAX_PLIES;
+	private double elo0 = 0;
+	private double elo1 = 5;
+	private double alpha = 0.05;
+	private double beta = 0.05;
+
+	/** The match of each pool thread, loaded in place for every game. */
+	private final ThreadLocal<ChessMatch> matches = ThreadLocal.withInitial(ChessMatch::new);
+	private final AtomicBoolean stopped = new AtomicBoolean();
+	private int wins;
+	private int draws;
+	private int losses;
+	private int errors;
+	private long nodes;
+	private long start;
+
+	/**
+	 * Constructs a tournament.
+	 *
+	 * @param first       The engine under test.
+	 * @param second      The reference engine.
+	 * @param openings    The opening positions in FEN, the start position if
+	 *                    empty.
+	 * @param concurrency The number of games played at once.
+	 */
+	public Tournament(EngineConfig first, EngineConfig second, List<String> openings, int concurrency) {
+		this.first = first;
+		this.second = second;
+		this.openings = openings.isEmpty() ? List.of(START_FEN) : new ArrayList<>(openings);
+		this.concurrency = Math.max(1, concurrency);
+	}
+
+	/**
+	 * Sets the number of plies after which a game is adjudicated a draw.
+	 *
+	 * @param maxPlies The ply limit.
+	 */
+	public void setMaxPlies(int maxPlies) {
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * Sets the SPRT hypotheses and error rates.
+	 *
+	 * @param elo0  The Elo difference of H0.
+	 * @param elo1  The Elo difference of H1.
+	 * @param alpha The false positive rate.
+	 * @param beta  The false negative rate.
+	 */
+	public void setSprt(double elo0, double elo1, double alpha, double beta) {
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	/**
+	 * Stops the tournament; games in progress are abandoned and not counted.
+	 */
+	public void stop() {
+		stopped.set(true);
+	}
+
+	/**
+	 * Retrieves the current standings.
+	 *
+	 * @return The standings.
+	 */
+	public synchronized TournamentResult result() {
+		long elapsed = start == 0 ? 0 : (System.nanoTime() - start) / 1_000_000;
+		return new TournamentResult(wins, draws, losses, errors, nodes, elapsed, elo0, elo1, alpha, beta);
+	}
+
+	/**
+	 * Plays the tournament, blocking until every game is played, the SPRT
+	 * decides or {@link #stop()} is called.
+	 *
+	 * @param games    The number of games, rounded up to an even number so
+	 *                 every opening is played with both colors.
+	 * @param progress Called with the standings after every game, or null.
+	 * @return The final standings.
+	 */
+	public TournamentResult run(int games, Consumer<TournamentResult> progress) {
+		synchronized (this) {
+			start = System.nanoTime();
+		}
+		int total = games + games % 2;
+		ExecutorService pool = Executors.newFixedThreadPool(concurrency, r -> {
+			Thread thread = new Thread(r, "tournament-game");
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < total; i++) {
+			String opening = openings.get((i / 2) % openings.size());
+			boolean firstIsWhite = i % 2 == 0;
+			pool.execute(() -> {
+				if (stopped.get()) {
+					return;
+				}
+				TournamentResult standings;
+				try {
+					double firstScore = playGame(opening, firstIsWhite);
+					if (Double.isNaN(firstScore)) {
+						return;
+					}
+					standings = record(firstScore);
+				} catch (RuntimeException e) {
+					// Count a broken game instead of losing it silently in the pool, and
+					// drop the match it may have left half played
+					System.err.println("Game from " + opening + " failed: " + e);
+					matches.remove();
+					standings = recordError();
+				}
+				if (standings.getSprtStatus() != TournamentResult.SprtStatus.CONTINUE) {
+					stopped.set(true);
+				}
+				if (progress != null) {
+					progress.accept(standings);
+				}
+			});
+		}
+		pool.shutdown();
+		try {
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			stopped.set(true);
+			Thread.currentThread().interrupt();
+		}
+		return result();
+	}
+
+	/**
+	 * Plays one game and returns the score of the first engine, or NaN if the
+	 * game was cut short by {@link #stop()}.
+	 */
+	private double playGame(String fen, boolean firstIsWhite) {
+		ChessMatch match = matches.get();
+		match.load(fen);
+		Engine firstEngine = first.createEngine();
+		Engine secondEngine = second.createEngine();
+		GameAdjudicator adjudicator = new GameAdjudicator(match, firstEngine.getZobrist(), maxPlies);
+		long gameNodes = 0;
+
+		GameAdjudicator.Outcome outcome = adjudicator.getOutcome();
+		while (outcome == GameAdjudicator.Outcome.ONGOING && !stopped.get()) {
+			boolean firstToMove = (match.getCurrentPlayer() == Color.WHITE) == firstIsWhite;
+			EngineConfig config = firstToMove ? first : second;
+			Engine engine = firstToMove ? firstEngine : secondEngine;
+			int move = engine.think(match, config.getDepth(), config.createTimeManager(), null);
+			gameNodes += engine.getMainSearch().getNodes();
+			outcome = adjudicator.play(move);
+		}
+		synchronized (this) {
+			nodes += gameNodes;
+		}
+		double whiteScore = outcome.getWhiteScore();
+		return firstIsWhite ? whiteScore : 1 - whiteScore;
+	}
+
+	private synchronized TournamentResult record(double firstScore) {
+		if (firstScore == 1) {
+			wins++;
+		} else if (firstScore == 0) {
+			losses++;
+		} else {
+			draws++;
+		}
+		return result();
+	}
+
+	private synchronized TournamentResult recordError() {
+		errors++;
+		return result();
+	}
+}
@@ -0,0 +1,191 @@
+package chess.engine;
+
+import java.util.Locale;
+
+/**
+ * Standings of a {@link Tournament} at one point in time, from the point of
+ * view of the first engine, with the statistics needed to accept or reject an
+ * engine change.
+ */
+public final class TournamentResult {
+
+	/**
+	 * Decision of the sequential probability ratio test.
+	 */
+	public enum SprtStatus {
+		/** The change is at least elo1 stronger. */
+		H1_ACCEPTED,
+		/** The change is no more than elo0 stronger. */
+		H0_ACCEPTED,
+		/** More games are needed. */
+		CONTINUE
+	}
+
+	private final int wins;
+	private final int draws;
+	private final int losses;
+	private final int errors;
+	private final long nodes;
+	private final long elapsedMillis;
+	private final double elo0;
+	private final double elo1;
+	private final double alpha;
+	private final double beta;
+
+	TournamentResult(int wins, int draws, int losses, int errors, long nodes, long elapsedMillis, double elo0,
+			double elo1, double alpha, double beta) {
+		this.wins = wins;
+		this.draws = draws;
+		this.losses = losses;
+		this.errors = errors;
+		this.nodes = nodes;
+		this.elapsedMillis = elapsedMillis;
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	public int getWins() {
+		return wins;
+	}
+
+	public int getDraws() {
+		return draws;
+	}
+
+	public int getLosses() {
+		return losses;
+	}
+
+	public int getGames() {
+		return wins + draws + losses;
+	}
+
+	/**
+	 * Retrieves the number of games that failed with an exception and are not
+	 * part of the score.
+	 *
+	 * @return The number of failed games.
+	 */
+	public int getErrors() {
+		return errors;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Retrieves the average score of the first engine.
+	 *
+	 * @return The score, from 0 to 1, or 0.5 before the first game.
+	 */
+	public double getScore() {
+		int games = getGames();
+		return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+	}
+
+	/**
+	 * Retrieves the Elo difference of the first engine over the second.
+	 *
+	 * @return The Elo difference, infinite after a clean sweep.
+	 */
+	public double getElo() {
+		return elo(getScore());
+	}
+
+	/**
+	 * Retrieves the half width of the 95% confidence interval of the Elo
+	 * difference, from the per-game score variance.
+	 *
+	 * @return The error margin in Elo, infinite with fewer than two games.
+	 */
+	public double getEloError() {
+		int games = getGames();
+		if (games < 2) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double p = getScore();
+		double stderr = Math.sqrt(variance() / games);
+		return (elo(Math.min(1, p + 1.96 * stderr)) - elo(Math.max(0, p - 1.96 * stderr))) / 2;
+	}
+
+	/**
+	 * Retrieves the log-likelihood ratio of H1 (elo1) against H0 (elo0), with
+	 * the normal approximation of the trinomial game outcome.
+	 *
+	 * @return The LLR, 0 before any informative game.
+	 */
+	public double getLlr() {
+		double variance = variance();
+		if (getGames() == 0 || variance == 0) {
+			return 0;
+		}
+		double s0 = expectedScore(elo0);
+		double s1 = expectedScore(elo1);
+		return getGames() * (s1 - s0) * (2 * getScore() - s0 - s1) / (2 * variance);
+	}
+
+	/**
+	 * Retrieves the SPRT decision for the current LLR.
+	 *
+	 * @return The decision.
+	 */
+	public SprtStatus getSprtStatus() {
+		double llr = getLlr();
+		if (llr >= Math.log((1 - beta) / alpha)) {
+			return SprtStatus.H1_ACCEPTED;
+		}
+		if (llr <= Math.log(beta / (1 - alpha))) {
+			return SprtStatus.H0_ACCEPTED;
+		}
+		return SprtStatus.CONTINUE;
+	}
+
+	public double getGamesPerSecond() {
+		return elapsedMillis == 0 ? 0 : getGames() * 1000.0 / elapsedMillis;
+	}
+
+	public double getNodesPerSecond() {
+		return elapsedMillis == 0 ? 0 : nodes * 1000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		String failed = errors == 0 ? "" : String.format(Locale.ROOT, "  %d failed", errors);
+		return String.format(Locale.ROOT,
+				"Games %d: +%d =%d -%d  score %.1f%%  Elo %+.1f +/- %.1f  LLR %.2f (%.2f, %.2f) [%.0f, %.0f] %s"
+						+ "  %.2f games/s  %.0f nodes/s",
+				getGames(), wins, draws, losses, 100 * getScore(), getElo(), getEloError(), getLlr(),
+				Math.log(beta / (1 - alpha)), Math.log((1 - beta) / alpha), elo0, elo1, getSprtStatus(),
+				getGamesPerSecond(), getNodesPerSecond()) + failed;
+	}
+
+	private double variance() {
+		int games = getGames();
+		if (games == 0) {
+			return 0;
+		}
+		double p = getScore();
+		return (wins * (1 - p) * (1 - p) + draws * (0.5 - p) * (0.5 - p) + losses * p * p) / games;
+	}
+
+	private static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	private static double elo(double score) {
+		if (score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+}
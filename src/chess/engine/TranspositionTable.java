@@ -0,0 +1,105 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, shared by all search threads.
+ * Entries are two longs; the key is stored xor-ed with the data so that a torn
+ * write by a concurrent thread is detected as a miss instead of a wrong hit.
+ *
+ * Data layout: bits 0-19 move, 20-27 depth, 28-29 bound, 32-63 score.
+ */
+public class TranspositionTable {
+
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2;
+	public static final int BOUND_UPPER = 3;
+
+	public static final int DEFAULT_MEGABYTES = 16;
+
+	private long[] keys;
+	private long[] data;
+	private int mask;
+
+	/**
+	 * Constructs a table of the default size.
+	 */
+	public TranspositionTable() {
+		this(DEFAULT_MEGABYTES);
+	}
+
+	/**
+	 * Constructs a table.
+	 *
+	 * @param megabytes The table size in megabytes, rounded down to a power of
+	 *                  two number of entries.
+	 */
+	public TranspositionTable(int megabytes) {
+		resize(megabytes);
+	}
+
+	/**
+	 * Reallocates the table, discarding all entries.
+	 *
+	 * @param megabytes The new size in megabytes.
+	 */
+	public synchronized void resize(int megabytes) {
+		long entries = Math.max(1, (long) megabytes * 1024 * 1024 / 16);
+		int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+		keys = new long[size];
+		data = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Discards all entries.
+	 */
+	public synchronized void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param hash The position hash.
+	 * @return The entry data, or 0 if the position is not in the table.
+	 */
+	public long probe(long hash) {
+		int index = (int) hash & mask;
+		long entry = data[index];
+		return (keys[index] ^ entry) == hash ? entry : 0;
+	}
+
+	/**
+	 * Stores a search result, replacing whatever was in its slot.
+	 *
+	 * @param hash  The position hash.
+	 * @param move  The best move found, or {@link Move#NONE}.
+	 * @param depth The search depth of the result.
+	 * @param bound One of the BOUND_ constants.
+	 * @param score The score, mate scores already adjusted to the node.
+	 */
+	public void store(long hash, int move, int depth, int bound, int score) {
+		int index = (int) hash & mask;
+		long entry = (move & 0xFFFFFL) | (long) (depth & 0xFF) << 20 | (long) bound << 28 | (long) score << 32;
+		data[index] = entry;
+		keys[index] = hash ^ entry;
+	}
+
+	public static int move(long entry) {
+		return (int) (entry & 0xFFFFF);
+	}
+
+	public static int depth(long entry) {
+		return (int) (entry >>> 20) & 0xFF;
+	}
+
+	public static int bound(long entry) {
+		return (int) (entry >>> 28) & 0x3;
+	}
+
+	public static int score(long entry) {
+		return (int) (entry >> 32);
+	}
+}
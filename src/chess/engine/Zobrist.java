@@ -0,0 +1,158 @@
+package chess.engine;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Zobrist hashing of chess match positions, using the Polyglot key layout:
+ * 768 piece-square keys, 4 castling keys, 8 en passant file keys and one
+ * side-to-move key.
+ *
+ * The default keys are pseudo-random and only meant for engine-internal
+ * tables. Keys compatible with Polyglot opening books are obtained with
+ * {@link #load(Path)} from a file holding the 781 Random64 values of the
+ * Polyglot specification as big-endian longs.
+ */
+public class Zobrist {
+
+	public static final int KEY_COUNT = 781;
+
+	private static final int CASTLE_OFFSET = 768;
+	private static final int EN_PASSANT_OFFSET = 772;
+	private static final int TURN_OFFSET = 780;
+
+	private final long[] keys;
+
+	/**
+	 * Constructs a hasher with keys generated from a fixed seed.
+	 */
+	public Zobrist() {
+		keys = new long[KEY_COUNT];
+		SplittableRandom random = new SplittableRandom(0x5EED_C0FFEEL);
+		for (int i = 0; i < KEY_COUNT; i++) {
+			keys[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * Constructs a hasher with the given keys.
+	 *
+	 * @param keys The 781 keys in Polyglot order.
+	 */
+	public Zobrist(long[] keys) {
+		if (keys.length != KEY_COUNT) {
+			throw new IllegalArgumentException("Expected " + KEY_COUNT + " keys, got " + keys.length);
+		}
+		this.keys = keys.clone();
+	}
+
+	/**
+	 * Loads a key table, e.g. the Polyglot Random64 array, from a file of 781
+	 * big-endian longs.
+	 *
+	 * @param file The key file.
+	 * @return The hasher using the loaded keys.
+	 * @throws IOException If the file cannot be read or is too short.
+	 */
+	public static Zobrist load(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			DataInputStream data = new DataInputStream(in);
+			long[] keys = new long[KEY_COUNT];
+			for (int i = 0; i < KEY_COUNT; i++) {
+				keys[i] = data.readLong();
+			}
+			return new Zobrist(keys);
+		}
+	}
+
+	/**
+	 * Retrieves the key of a piece on a square.
+	 *
+	 * @param type   The piece type, see {@link PieceType}.
+	 * @param color  The piece color.
+	 * @param row    The row of the square (0 is rank 8).
+	 * @param column The column of the square.
+	 * @return The key.
+	 */
+	public long pieceKey(int type, Color color, int row, int column) {
+		int kind = type * 2 + (color == Color.WHITE ? 1 : 0);
+		return keys[kind * 64 + (7 - row) * 8 + column];
+	}
+
+	/**
+	 * Computes the hash of the current position of a match.
+	 *
+	 * @param match The chess match.
+	 * @return The 64-bit position hash.
+	 */
+	public long hash(ChessMatch match) {
+		long hash = 0;
+		for (int row = 0; row < 8; row++) {
+			for (int column = 0; column < 8; column++) {
+				ChessPiece p = match.getPiece(row, column);
+				if (p != null) {
+					hash ^= pieceKey(PieceType.of(p), p.getColor(), row, column);
+				}
+			}
+		}
+
+		if (match.hasCastlingRight(Color.WHITE, true)) {
+			hash ^= keys[CASTLE_OFFSET];
+		}
+		if (match.hasCastlingRight(Color.WHITE, false)) {
+			hash ^= keys[CASTLE_OFFSET + 1];
+		}
+		if (match.hasCastlingRight(Color.BLACK, true)) {
+			hash ^= keys[CASTLE_OFFSET + 2];
+		}
+		if (match.hasCastlingRight(Color.BLACK, false)) {
+			hash ^= keys[CASTLE_OFFSET + 3];
+		}
+
+		int file = enPassantFile(match);
+		if (file >= 0) {
+			hash ^= keys[EN_PASSANT_OFFSET + file];
+		}
+
+		if (match.getCurrentPlayer() == Color.WHITE) {
+			hash ^= keys[TURN_OFFSET];
+		}
+		return hash;
+	}
+
+	/**
+	 * Retrieves the en passant file as Polyglot hashes it: only when a pawn of
+	 * the side to move stands next to the pawn that just moved two squares.
+	 */
+	private static int enPassantFile(ChessMatch match) {
+		ChessPiece pawn = match.getEnPassant();
+		if (pawn == null) {
+			return -1;
+		}
+		int row = match.getCurrentPlayer() == Color.WHITE ? 3 : 4;
+		for (int column = 0; column < 8; column++) {
+			if (match.getPiece(row, column) == pawn) {
+				for (int side = -1; side <= 1; side += 2) {
+					int c = column + side;
+					if (c >= 0 && c < 8) {
+						ChessPiece p = match.getPiece(row, c);
+						if (p != null && p.getColor() == match.getCurrentPlayer()
+								&& PieceType.of(p) == PieceType.PAWN) {
+							return column;
+						}
+					}
+				}
+				return -1;
+			}
+		}
+		return -1;
+	}
+}
@@ -9,5 +9,19 @@ public class ChessException extends BoardException{
 		super(msg);
 	}
 
+	private ChessException(String msg, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(msg, cause, enableSuppression, writableStackTrace);
+	}
+
+	/**
+	 * Creates an exception without stack trace or suppressed exceptions, meant
+	 * to be preallocated and shared, as by {@link chess.MoveRejection}.
+	 *
+	 * @param msg The message.
+	 * @return The exception.
+	 */
+	public static ChessException stackless(String msg) {
+		return new ChessException(msg, null, false, false);
+	}
 	
 }
@@ -0,0 +1,165 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counter and latency histogram for one instrumented operation, safe to
+ * record from many threads without contention: every counter is a striped
+ * {@link LongAdder}.
+ *
+ * The histogram uses HdrHistogram-style buckets: values below 4 ns get a bucket
+ * each, larger values are split into powers of two, each cut into 4
+ * sub-buckets, so any percentile is reported within 25% of the true value.
+ */
+public final class LatencyTimer implements LatencyTimerMXBean {
+
+	private static final int SUB_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final String name;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+	LatencyTimer(String name) {
+		this.name = name;
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Records one call that started at a {@link System#nanoTime()} reading.
+	 *
+	 * @param startNanos The start time.
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Records one call.
+	 *
+	 * @param nanos The duration of the call in nanoseconds.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		buckets[bucket(nanos)].increment();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCount() {
+		return count.sum();
+	}
+
+	@Override
+	public long getTotalNanos() {
+		return totalNanos.sum();
+	}
+
+	@Override
+	public long getMeanNanos() {
+		long n = count.sum();
+		return n == 0 ? 0 : totalNanos.sum() / n;
+	}
+
+	@Override
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	@Override
+	public long getP50Nanos() {
+		return percentile(50);
+	}
+
+	@Override
+	public long getP90Nanos() {
+		return percentile(90);
+	}
+
+	@Override
+	public long getP99Nanos() {
+		return percentile(99);
+	}
+
+	@Override
+	public long getP999Nanos() {
+		return percentile(99.9);
+	}
+
+	/**
+	 * Retrieves a latency percentile.
+	 *
+	 * @param percent The percentile, from 0 to 100.
+	 * @return The upper bound of the bucket holding the percentile, in
+	 *         nanoseconds, or 0 if nothing was recorded.
+	 */
+	public long percentile(double percent) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * percent / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= Math.max(1, rank)) {
+				return Math.min(upperBound(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	@Override
+	public void reset() {
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: count=%d mean=%dns p50=%dns p99=%dns max=%dns", name, getCount(), getMeanNanos(),
+				getP50Nanos(), getP99Nanos(), getMaxNanos());
+	}
+
+	static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long width = 1L << (exponent - SUB_BITS);
+		return ((SUB_BUCKETS + bucket % SUB_BUCKETS) * width) + width - 1;
+	}
+}
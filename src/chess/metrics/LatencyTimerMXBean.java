@@ -0,0 +1,31 @@
+package chess.metrics;
+
+/**
+ * JMX view of a {@link LatencyTimer}. Latencies are in nanoseconds;
+ * percentiles are the upper bound of the histogram bucket they fall in.
+ */
+public interface LatencyTimerMXBean {
+
+	String getName();
+
+	long getCount();
+
+	long getTotalNanos();
+
+	long getMeanNanos();
+
+	long getMaxNanos();
+
+	long getP50Nanos();
+
+	long getP90Nanos();
+
+	long getP99Nanos();
+
+	long getP999Nanos();
+
+	/**
+	 * Clears the counters and the histogram.
+	 */
+	void reset();
+}
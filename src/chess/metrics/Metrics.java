@@ -0,0 +1,46 @@
+package chess.metrics;
+
+import javax.management.JMException;
+
+/**
+ * Switch and timers for the hot paths of the chess rules.
+ *
+ * Metrics are enabled with the system property {@code -Dchess.metrics=true}.
+ * {@link #ENABLED} is a static final constant, so when it is false the JIT
+ * compiler drops the guarded timing code and instrumented methods cost nothing
+ * beyond a call to their uninstrumented body, which it inlines. When enabled,
+ * the timers are also published over JMX.
+ */
+public final class Metrics {
+
+	public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+	private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+	public static final LatencyTimer PERFORM_CHESS_MOVE = REGISTRY.timer("performChessMove");
+	public static final LatencyTimer TEST_CHECK = REGISTRY.timer("testCheck");
+	public static final LatencyTimer TEST_CHECK_MATE = REGISTRY.timer("testCheckMate");
+	public static final LatencyTimer POSSIBLE_MOVIES = REGISTRY.timer("possibleMovies");
+
+	static {
+		if (ENABLED) {
+			try {
+				REGISTRY.registerMBeans();
+			} catch (JMException e) {
+				System.err.println("Chess metrics not published over JMX: " + e.getMessage());
+			}
+		}
+	}
+
+	private Metrics() {
+	}
+
+	/**
+	 * Retrieves the registry holding the timers.
+	 *
+	 * @return The registry.
+	 */
+	public static MetricsRegistry registry() {
+		return REGISTRY;
+	}
+}
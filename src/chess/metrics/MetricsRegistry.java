@@ -0,0 +1,79 @@
+package chess.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * In-process registry of the latency timers, keyed by name.
+ */
+public final class MetricsRegistry {
+
+	public static final String JMX_DOMAIN = "chess";
+
+	private final Map<String, LatencyTimer> timers = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Retrieves a timer, creating it on first use.
+	 *
+	 * @param name The timer name.
+	 * @return The timer.
+	 */
+	public LatencyTimer timer(String name) {
+		return timers.computeIfAbsent(name, LatencyTimer::new);
+	}
+
+	/**
+	 * Retrieves the registered timers, sorted by name.
+	 *
+	 * @return An unmodifiable view of the timers.
+	 */
+	public Collection<LatencyTimer> timers() {
+		return Collections.unmodifiableCollection(timers.values());
+	}
+
+	/**
+	 * Clears every timer.
+	 */
+	public void reset() {
+		for (LatencyTimer timer : timers.values()) {
+			timer.reset();
+		}
+	}
+
+	/**
+	 * Registers every timer with the platform MBean server as
+	 * "chess:type=Metrics,name=&lt;timer&gt;". Timers already registered are
+	 * skipped.
+	 *
+	 * @throws JMException If a timer cannot be registered.
+	 */
+	public void registerMBeans() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (LatencyTimer timer : timers.values()) {
+			ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Metrics,name=" + timer.getName());
+			if (!server.isRegistered(name)) {
+				server.registerMBean(timer, name);
+			}
+		}
+	}
+
+	/**
+	 * Formats every timer, one per line.
+	 *
+	 * @return The report.
+	 */
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+		for (LatencyTimer timer : timers.values()) {
+			sb.append(timer).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
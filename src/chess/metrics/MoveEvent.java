@@ -0,0 +1,39 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a call to
+ * {@link chess.ChessMatch#performChessMove(chess.ChessPosition, chess.ChessPosition)}.
+ * The event duration is the time spent in the call. It can be switched on and
+ * off on its own with the setting {@code chess.Move#enabled}.
+ */
+@Name("chess.Move")
+@Label("Chess Move")
+@Category("Chess")
+@Description("A move submitted to a chess match, with its outcome")
+@StackTrace(false)
+public final class MoveEvent extends Event {
+
+	@Label("Source")
+	public String source;
+
+	@Label("Target")
+	public String target;
+
+	@Label("Accepted")
+	@Description("False if the move was rejected as illegal")
+	public boolean accepted;
+
+	@Label("Check")
+	@Description("The opponent is in check after the move")
+	public boolean check;
+
+	@Label("Checkmate")
+	public boolean checkMate;
+}
@@ -2,6 +2,7 @@ package chess.pieces;
 
 import boardgame.Board;
 import boardgame.Position;
+import chess.AttackMap;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
@@ -47,6 +48,47 @@ public class King extends ChessPiece {
         return cp != null && cp instanceof Rook && cp.getColor() == getColor() && cp.getMoveCount() == 0;
     }
 
+    /**
+     * Marca o movimento de roque para um lado, se o direito de roque ainda vale, as
+     * casas entre o rei, a torre e suas casas de destino estão livres e nenhuma casa
+     * que o rei atravessa ou ocupa está atacada pelo adversário. O rei termina
+     * na coluna g ou c e a torre na f ou d, qualquer que seja a posição inicial
+     * (Chess960). No Chess960 o roque é indicado movendo o rei para a casa da torre.
+     * 
+     * @param mat A matriz de movimentos possíveis.
+     * @param kingside true para o roque do lado do rei, false para o lado da rainha.
+     */
+    private void testCastling(boolean[][] mat, boolean kingside) {
+        if (!chessMatch.hasCastlingRight(getColor(), kingside)) {
+            return;
+        }
+        int row = position.getRow();
+        int rookColumn = chessMatch.getCastlingRookColumn(getColor(), kingside);
+        Position rookPosition = Position.of(row, rookColumn);
+        if (!testRookCastling(rookPosition)) {
+            return;
+        }
+        ChessPiece rook = (ChessPiece) getBoard().piece(rookPosition);
+        int kingTarget = ChessMatch.castlingKingTarget(kingside);
+        int rookTarget = ChessMatch.castlingRookTarget(kingside);
+        int from = Math.min(Math.min(position.getColumn(), rookColumn), Math.min(kingTarget, rookTarget));
+        int to = Math.max(Math.max(position.getColumn(), rookColumn), Math.max(kingTarget, rookTarget));
+        for (int column = from; column <= to; column++) {
+            ChessPiece p = (ChessPiece) getBoard().piece(row, column);
+            if (p != null && p != this && p != rook) {
+                return;
+            }
+        }
+        AttackMap enemyAttacks = chessMatch.getAttackMap(getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
+        int kingColumn = position.getColumn();
+        for (int column = Math.min(kingColumn, kingTarget); column <= Math.max(kingColumn, kingTarget); column++) {
+            if (enemyAttacks.isAttacked(row, column)) {
+                return;
+            }
+        }
+        mat[row][chessMatch.isChess960() ? rookColumn : kingTarget] = true;
+    }
+
     /**
      * Retorna uma representação em string da peça Rei.
      * 
@@ -122,24 +164,9 @@ public class King extends ChessPiece {
          */
         if (getMoveCount() == 0 && !chessMatch.getCheck()) {
             // Roque do lado do rei (roque curto)
-            Position posTK = new Position(position.getRow(), position.getColumn() + 3);
-            if (testRookCastling(posTK)) {
-                Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-                    mat[position.getRow()][position.getColumn() + 2] = true;
-                }
-            }
+            testCastling(mat, true);
             // Roque do lado da rainha (roque longo)
-            Position posTQ = new Position(position.getRow(), position.getColumn() - 4);
-            if (testRookCastling(posTQ)) {
-                Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-                Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-                    mat[position.getRow()][position.getColumn() - 2] = true;
-                }
-            }
+            testCastling(mat, false);
         }
 
         return mat;
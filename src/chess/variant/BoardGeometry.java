@@ -0,0 +1,196 @@
+package chess.variant;
+
+import java.util.Arrays;
+
+/**
+ * Move tables of one board size, computed once and shared by every position
+ * of that size. Squares are numbered row * columns + column, row 0 being the
+ * top rank as in {@link chess.ChessMatch}. For every square the tables list
+ * the knight and king targets, the squares along each of the eight rays and
+ * the pawn pushes and captures of each color, so move generation never checks
+ * board edges.
+ */
+public final class BoardGeometry {
+
+	/** Ray directions: the four straight ones first, then the diagonals. */
+	public static final int[][] DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 },
+			{ 1, -1 }, { 1, 1 } };
+
+	private static final int[][] KNIGHT_STEPS = { { -2, -1 }, { -2, 1 }, { -1, -2 }, { -1, 2 }, { 1, -2 }, { 1, 2 },
+			{ 2, -1 }, { 2, 1 } };
+
+	private static final BoardGeometry[] CACHE = new BoardGeometry[(Variant.MAX_SIZE + 1) * (Variant.MAX_SIZE + 1)];
+
+	private final int rows;
+	private final int columns;
+	private final int[][] knight;
+	private final int[][] king;
+	private final int[][][] rays;
+	private final int[][] pawnPush;
+	private final int[][][] pawnCaptures;
+
+	private BoardGeometry(int rows, int columns) {
+		this.rows = rows;
+		this.columns = columns;
+		int squares = rows * columns;
+		knight = new int[squares][];
+		king = new int[squares][];
+		rays = new int[squares][DIRECTIONS.length][];
+		pawnPush = new int[2][squares];
+		pawnCaptures = new int[2][squares][];
+		for (int square = 0; square < squares; square++) {
+			int row = square / columns;
+			int column = square % columns;
+			knight[square] = steps(row, column, KNIGHT_STEPS);
+			king[square] = steps(row, column, DIRECTIONS);
+			for (int d = 0; d < DIRECTIONS.length; d++) {
+				rays[square][d] = ray(row, column, DIRECTIONS[d]);
+			}
+			for (int color = 0; color < 2; color++) {
+				int forward = color == 0 ? -1 : 1;
+				pawnPush[color][square] = exists(row + forward, column) ? square + forward * columns : -1;
+				pawnCaptures[color][square] = steps(row, column, new int[][] { { forward, -1 }, { forward, 1 } });
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the tables of a board size, building them on first use.
+	 *
+	 * @param rows    The number of rows, up to {@link Variant#MAX_SIZE}.
+	 * @param columns The number of columns, up to {@link Variant#MAX_SIZE}.
+	 * @return The shared tables.
+	 */
+	public static BoardGeometry of(int rows, int columns) {
+		int index = rows * (Variant.MAX_SIZE + 1) + columns;
+		synchronized (CACHE) {
+			if (CACHE[index] == null) {
+				CACHE[index] = new BoardGeometry(rows, columns);
+			}
+			return CACHE[index];
+		}
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getSquares() {
+		return rows * columns;
+	}
+
+	public int row(int square) {
+		return square / columns;
+	}
+
+	public int column(int square) {
+		return square % columns;
+	}
+
+	public int square(int row, int column) {
+		return row * columns + column;
+	}
+
+	/**
+	 * Retrieves the squares a knight on the given square jumps to.
+	 */
+	public int[] knightTargets(int square) {
+		return knight[square];
+	}
+
+	/**
+	 * Retrieves the squares a king on the given square steps to.
+	 */
+	public int[] kingTargets(int square) {
+		return king[square];
+	}
+
+	/**
+	 * Retrieves the squares from the given square to the edge in one of the
+	 * {@link #DIRECTIONS}, nearest first.
+	 */
+	public int[] ray(int square, int direction) {
+		return rays[square][direction];
+	}
+
+	/**
+	 * Retrieves the square a pawn pushes to, or -1 on the last rank.
+	 *
+	 * @param black  true for a black pawn, which moves towards higher rows.
+	 * @param square The square of the pawn.
+	 * @return The square one rank ahead.
+	 */
+	public int pawnPush(boolean black, int square) {
+		return pawnPush[black ? 1 : 0][square];
+	}
+
+	/**
+	 * Retrieves the squares a pawn captures on. Read the other way round, the
+	 * captures of a pawn of one color from a square are where pawns of the
+	 * other color attack that square from.
+	 */
+	public int[] pawnCaptures(boolean black, int square) {
+		return pawnCaptures[black ? 1 : 0][square];
+	}
+
+	/**
+	 * Formats a square in algebraic notation, with multi-digit ranks on
+	 * boards of more than nine rows, e.g. "a10".
+	 */
+	public String name(int square) {
+		return "" + (char) ('a' + column(square)) + (rows - row(square));
+	}
+
+	/**
+	 * Parses a square in algebraic notation.
+	 *
+	 * @param name The square, e.g. "e4" or "j10".
+	 * @return The square index.
+	 * @throws IllegalArgumentException If the square is not on the board.
+	 */
+	public int parse(String name) {
+		int column = name.charAt(0) - 'a';
+		int rank;
+		try {
+			rank = Integer.parseInt(name.substring(1));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid square: " + name);
+		}
+		if (!exists(rows - rank, column)) {
+			throw new IllegalArgumentException("Invalid square: " + name);
+		}
+		return square(rows - rank, column);
+	}
+
+	private int[] steps(int row, int column, int[][] offsets) {
+		int[] targets = new int[offsets.length];
+		int count = 0;
+		for (int[] offset : offsets) {
+			if (exists(row + offset[0], column + offset[1])) {
+				targets[count++] = square(row + offset[0], column + offset[1]);
+			}
+		}
+		return Arrays.copyOf(targets, count);
+	}
+
+	private int[] ray(int row, int column, int[] direction) {
+		int[] squares = new int[Math.max(rows, columns)];
+		int count = 0;
+		int r = row + direction[0];
+		int c = column + direction[1];
+		while (exists(r, c)) {
+			squares[count++] = square(r, c);
+			r += direction[0];
+			c += direction[1];
+		}
+		return Arrays.copyOf(squares, count);
+	}
+
+	private boolean exists(int row, int column) {
+		return row >= 0 && row < rows && column >= 0 && column < columns;
+	}
+}
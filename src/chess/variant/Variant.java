@@ -0,0 +1,159 @@
+package chess.variant;
+
+/**
+ * Rules of a chess variant played on a board of any size up to 16x16: the
+ * board dimensions, the back rank and whether castling is allowed. Pawns start
+ * on the second rank of each side, may move two squares from there and
+ * promote on the last rank to any piece of the back rank but the king.
+ * Castling sends the king to the third file from its edge (c or g on 8
+ * files, c or i on 10) and the rook next to it on the inner side, whatever
+ * their starting files.
+ *
+ * Besides the standard pieces, back ranks may hold the archbishop (A, bishop
+ * and knight) and the chancellor (C, rook and knight).
+ */
+public final class Variant {
+
+	public static final int MAX_SIZE = 16;
+
+	public static final Variant STANDARD = new Variant("standard", 8, 8, "RNBQKBNR", true);
+	public static final Variant CAPABLANCA = new Variant("capablanca", 8, 10, "RNABQKBCNR", true);
+	public static final Variant CAPABLANCA_10X10 = new Variant("capablanca10x10", 10, 10, "RNABQKBCNR", true);
+
+	private final String name;
+	private final int rows;
+	private final int columns;
+	private final String backRank;
+	private final boolean castling;
+	private final String promotions;
+
+	/**
+	 * Constructs a variant.
+	 *
+	 * @param name     The name of the variant.
+	 * @param rows     The number of ranks, from 4 to 16.
+	 * @param columns  The number of files, from 3 to 16.
+	 * @param backRank The white pieces of the first rank from file a, in FEN
+	 *                 letters among N, B, R, Q, K, A and C, with exactly one
+	 *                 king; black mirrors them.
+	 * @param castling Whether kings may castle with the outermost rook on
+	 *                 each side.
+	 * @throws IllegalArgumentException If the dimensions or the back rank are
+	 *                                  invalid.
+	 */
+	public Variant(String name, int rows, int columns, String backRank, boolean castling) {
+		if (rows < 4 || rows > MAX_SIZE || columns < 3 || columns > MAX_SIZE) {
+			throw new IllegalArgumentException("Invalid board size: " + rows + "x" + columns);
+		}
+		if (castling && columns < 6) {
+			throw new IllegalArgumentException("Castling needs at least 6 files: " + columns);
+		}
+		if (backRank.length() != columns || backRank.indexOf('K') < 0
+				|| backRank.indexOf('K') != backRank.lastIndexOf('K')) {
+			throw new IllegalArgumentException("Invalid back rank: " + backRank);
+		}
+		StringBuilder promotions = new StringBuilder();
+		for (char c : backRank.toCharArray()) {
+			int type = VariantPiece.typeOf(c);
+			if (type == VariantPiece.EMPTY || type == VariantPiece.PAWN) {
+				throw new IllegalArgumentException("Invalid back rank: " + backRank);
+			}
+			if (type != VariantPiece.KING && promotions.indexOf(String.valueOf(c)) < 0) {
+				promotions.append(c);
+			}
+		}
+		this.name = name;
+		this.rows = rows;
+		this.columns = columns;
+		this.backRank = backRank;
+		this.castling = castling;
+		this.promotions = promotions.toString();
+	}
+
+	/**
+	 * Retrieves a built-in variant by name.
+	 *
+	 * @param name "standard", "capablanca" (10x8) or "capablanca10x10".
+	 * @return The variant.
+	 * @throws IllegalArgumentException If the name is unknown.
+	 */
+	public static Variant forName(String name) {
+		for (Variant variant : new Variant[] { STANDARD, CAPABLANCA, CAPABLANCA_10X10 }) {
+			if (variant.name.equalsIgnoreCase(name)) {
+				return variant;
+			}
+		}
+		throw new IllegalArgumentException("Unknown variant: " + name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public String getBackRank() {
+		return backRank;
+	}
+
+	public boolean hasCastling() {
+		return castling;
+	}
+
+	/**
+	 * Retrieves the pieces a pawn may promote to.
+	 *
+	 * @return The white FEN letters, in back rank order.
+	 */
+	public String getPromotions() {
+		return promotions;
+	}
+
+	/**
+	 * Retrieves the column a castling king lands on.
+	 *
+	 * @param kingside true for castling towards the last file.
+	 * @return The column of the king after castling.
+	 */
+	public int castlingKingTarget(boolean kingside) {
+		return kingside ? columns - 2 : 2;
+	}
+
+	/**
+	 * Retrieves the column a castling rook lands on.
+	 *
+	 * @param kingside true for castling towards the last file.
+	 * @return The column of the rook after castling.
+	 */
+	public int castlingRookTarget(boolean kingside) {
+		return kingside ? columns - 3 : 3;
+	}
+
+	/**
+	 * Retrieves the start position in FEN, ranks of more than nine empty
+	 * squares written with multi-digit counts.
+	 *
+	 * @return The FEN string of the start position.
+	 */
+	public String startFen() {
+		StringBuilder sb = new StringBuilder(backRank.toLowerCase()).append('/');
+		sb.append("p".repeat(columns)).append('/');
+		for (int i = 0; i < rows - 4; i++) {
+			sb.append(columns).append('/');
+		}
+		sb.append("P".repeat(columns)).append('/').append(backRank);
+		sb.append(castling ? " w KQkq - 0 1" : " w - - 0 1");
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
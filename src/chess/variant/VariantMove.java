@@ -0,0 +1,72 @@
+package chess.variant;
+
+/**
+ * Static helpers for variant moves encoded as a single int, like
+ * {@link chess.engine.Move} but with room for 16x16 boards.
+ *
+ * Layout: bits 0-7 source square, 8-15 target square, 16-19 promotion piece
+ * type and bits 20-24 the flags. A castling move goes from the king's square
+ * to the square the king lands on.
+ */
+public final class VariantMove {
+
+	public static final int NONE = 0;
+
+	public static final int CAPTURE = 1 << 20;
+	public static final int DOUBLE_PUSH = 1 << 21;
+	public static final int EN_PASSANT = 1 << 22;
+	public static final int CASTLE_KINGSIDE = 1 << 23;
+	public static final int CASTLE_QUEENSIDE = 1 << 24;
+
+	static final int CASTLING = CASTLE_KINGSIDE | CASTLE_QUEENSIDE;
+
+	private VariantMove() {
+	}
+
+	/**
+	 * Encodes a move.
+	 *
+	 * @param source    The source square.
+	 * @param target    The target square.
+	 * @param promotion The promotion piece type, see {@link VariantPiece}, or
+	 *                  0.
+	 * @param flags     The flags of the move, or 0.
+	 * @return The encoded move.
+	 */
+	public static int of(int source, int target, int promotion, int flags) {
+		return source | target << 8 | promotion << 16 | flags;
+	}
+
+	public static int source(int move) {
+		return move & 0xFF;
+	}
+
+	public static int target(int move) {
+		return (move >>> 8) & 0xFF;
+	}
+
+	public static int promotion(int move) {
+		return (move >>> 16) & 0xF;
+	}
+
+	public static boolean isCapture(int move) {
+		return (move & CAPTURE) != 0;
+	}
+
+	public static boolean isCastling(int move) {
+		return (move & CASTLING) != 0;
+	}
+
+	/**
+	 * Formats a move in coordinate notation, e.g. "e2e4", "b7b8c" or "f1i1".
+	 *
+	 * @param move     The encoded move.
+	 * @param geometry The tables of the board the move is played on.
+	 * @return The move text.
+	 */
+	public static String toString(int move, BoardGeometry geometry) {
+		String text = geometry.name(source(move)) + geometry.name(target(move));
+		int promotion = promotion(move);
+		return promotion == 0 ? text : text + Character.toLowerCase(VariantPiece.letter(promotion));
+	}
+}
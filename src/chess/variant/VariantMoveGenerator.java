@@ -0,0 +1,185 @@
+package chess.variant;
+
+/**
+ * Generates the moves of a {@link VariantPosition} into int arrays, walking
+ * the precomputed tables of its {@link BoardGeometry} so no board edge is
+ * tested during generation.
+ */
+public final class VariantMoveGenerator {
+
+	/** A buffer of this size holds the moves of any position up to 16x16. */
+	public static final int MAX_MOVES = 2048;
+
+	private VariantMoveGenerator() {
+	}
+
+	/**
+	 * Generates all pseudo-legal moves of the side to move. Moves that leave the
+	 * own king in check are included and must be filtered by the caller.
+	 *
+	 * @param position The position.
+	 * @param moves    The buffer receiving the encoded moves.
+	 * @return The number of moves written to the buffer.
+	 */
+	public static int generateMoves(VariantPosition position, int[] moves) {
+		BoardGeometry geometry = position.getGeometry();
+		int[] board = position.board;
+		boolean black = position.isBlackToMove();
+		int color = black ? VariantPiece.BLACK : 0;
+		int count = 0;
+		for (int square = 0; square < board.length; square++) {
+			int piece = board[square];
+			if (piece == VariantPiece.EMPTY || (piece & VariantPiece.BLACK) != color) {
+				continue;
+			}
+			int type = VariantPiece.type(piece);
+			if (type == VariantPiece.PAWN) {
+				count = pawnMoves(position, square, moves, count);
+				continue;
+			}
+			if (VariantPiece.leaps(type)) {
+				count = stepMoves(board, color, square, geometry.knightTargets(square), moves, count);
+			}
+			if (VariantPiece.slidesStraight(type)) {
+				count = rayMoves(board, color, geometry, square, 0, 4, moves, count);
+			}
+			if (VariantPiece.slidesDiagonally(type)) {
+				count = rayMoves(board, color, geometry, square, 4, 8, moves, count);
+			}
+			if (type == VariantPiece.KING) {
+				count = stepMoves(board, color, square, geometry.kingTargets(square), moves, count);
+				count = castlingMove(position, square, true, moves, count);
+				count = castlingMove(position, square, false, moves, count);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Generates the legal moves of the side to move, trying each pseudo-legal
+	 * move on the position.
+	 *
+	 * @param position The position, left as it was.
+	 * @param moves    The buffer receiving the encoded moves.
+	 * @return The number of moves written to the buffer.
+	 */
+	public static int generateLegalMoves(VariantPosition position, int[] moves) {
+		boolean black = position.isBlackToMove();
+		int count = generateMoves(position, moves);
+		int legal = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(moves[i]);
+			if (!position.isInCheck(black)) {
+				moves[legal++] = moves[i];
+			}
+			position.undoMove();
+		}
+		return legal;
+	}
+
+	private static int pawnMoves(VariantPosition position, int square, int[] moves, int count) {
+		BoardGeometry geometry = position.getGeometry();
+		int[] board = position.board;
+		boolean black = position.isBlackToMove();
+		int color = black ? VariantPiece.BLACK : 0;
+		int push = geometry.pawnPush(black, square);
+		if (push >= 0 && board[push] == VariantPiece.EMPTY) {
+			count = pawnMove(position, square, push, 0, moves, count);
+			int startRow = black ? 1 : geometry.getRows() - 2;
+			int jump = geometry.pawnPush(black, push);
+			if (geometry.row(square) == startRow && jump >= 0 && board[jump] == VariantPiece.EMPTY) {
+				moves[count++] = VariantMove.of(square, jump, 0, VariantMove.DOUBLE_PUSH);
+			}
+		}
+		for (int target : geometry.pawnCaptures(black, square)) {
+			int victim = board[target];
+			if (victim != VariantPiece.EMPTY && (victim & VariantPiece.BLACK) != color) {
+				count = pawnMove(position, square, target, VariantMove.CAPTURE, moves, count);
+			} else if (target == position.getEnPassant()) {
+				moves[count++] = VariantMove.of(square, target, 0, VariantMove.CAPTURE | VariantMove.EN_PASSANT);
+			}
+		}
+		return count;
+	}
+
+	private static int pawnMove(VariantPosition position, int source, int target, int flags, int[] moves,
+			int count) {
+		BoardGeometry geometry = position.getGeometry();
+		int lastRow = position.isBlackToMove() ? geometry.getRows() - 1 : 0;
+		if (geometry.row(target) != lastRow) {
+			moves[count++] = VariantMove.of(source, target, 0, flags);
+			return count;
+		}
+		String promotions = position.getVariant().getPromotions();
+		for (int i = 0; i < promotions.length(); i++) {
+			moves[count++] = VariantMove.of(source, target, VariantPiece.typeOf(promotions.charAt(i)), flags);
+		}
+		return count;
+	}
+
+	private static int stepMoves(int[] board, int color, int square, int[] targets, int[] moves, int count) {
+		for (int target : targets) {
+			int victim = board[target];
+			if (victim == VariantPiece.EMPTY) {
+				moves[count++] = VariantMove.of(square, target, 0, 0);
+			} else if ((victim & VariantPiece.BLACK) != color) {
+				moves[count++] = VariantMove.of(square, target, 0, VariantMove.CAPTURE);
+			}
+		}
+		return count;
+	}
+
+	private static int rayMoves(int[] board, int color, BoardGeometry geometry, int square, int firstDirection,
+			int lastDirection, int[] moves, int count) {
+		for (int d = firstDirection; d < lastDirection; d++) {
+			for (int target : geometry.ray(square, d)) {
+				int victim = board[target];
+				if (victim == VariantPiece.EMPTY) {
+					moves[count++] = VariantMove.of(square, target, 0, 0);
+					continue;
+				}
+				if ((victim & VariantPiece.BLACK) != color) {
+					moves[count++] = VariantMove.of(square, target, 0, VariantMove.CAPTURE);
+				}
+				break;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the castling move on one side if the right holds, every square the
+	 * king and rook cross or land on is free but for themselves, and the king
+	 * is not in check and crosses or lands on no attacked square.
+	 */
+	private static int castlingMove(VariantPosition position, int king, boolean kingside, int[] moves, int count) {
+		boolean black = position.isBlackToMove();
+		if (!position.hasCastlingRight(black, kingside)) {
+			return count;
+		}
+		BoardGeometry geometry = position.getGeometry();
+		Variant variant = position.getVariant();
+		int row = geometry.row(king);
+		int kingColumn = geometry.column(king);
+		int rook = position.castlingRook(black, kingside);
+		int rookColumn = geometry.column(rook);
+		int kingTarget = variant.castlingKingTarget(kingside);
+		int rookTarget = variant.castlingRookTarget(kingside);
+		int from = Math.min(Math.min(kingColumn, rookColumn), Math.min(kingTarget, rookTarget));
+		int to = Math.max(Math.max(kingColumn, rookColumn), Math.max(kingTarget, rookTarget));
+		for (int c = from; c <= to; c++) {
+			int square = geometry.square(row, c);
+			if (square != king && square != rook && position.board[square] != VariantPiece.EMPTY) {
+				return count;
+			}
+		}
+		for (int c = Math.min(kingColumn, kingTarget); c <= Math.max(kingColumn, kingTarget); c++) {
+			if (position.isAttacked(geometry.square(row, c), !black)) {
+				return count;
+			}
+		}
+		int flag = kingside ? VariantMove.CASTLE_KINGSIDE : VariantMove.CASTLE_QUEENSIDE;
+		moves[count++] = VariantMove.of(king, geometry.square(row, kingTarget), 0, flag);
+		return count;
+	}
+}
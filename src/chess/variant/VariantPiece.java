@@ -0,0 +1,93 @@
+package chess.variant;
+
+/**
+ * Piece codes of a {@link VariantPosition}: the type in the low bits and
+ * {@link #BLACK} for black pieces, 0 for an empty square.
+ */
+public final class VariantPiece {
+
+	public static final int EMPTY = 0;
+	public static final int PAWN = 1;
+	public static final int KNIGHT = 2;
+	public static final int BISHOP = 3;
+	public static final int ROOK = 4;
+	public static final int QUEEN = 5;
+	public static final int KING = 6;
+	public static final int ARCHBISHOP = 7;
+	public static final int CHANCELLOR = 8;
+
+	public static final int BLACK = 16;
+
+	private static final String LETTERS = ".PNBRQKAC";
+
+	private VariantPiece() {
+	}
+
+	/**
+	 * Retrieves the type of a piece code.
+	 *
+	 * @param piece The piece code.
+	 * @return One of the type constants, EMPTY for an empty square.
+	 */
+	public static int type(int piece) {
+		return piece & 15;
+	}
+
+	public static boolean isBlack(int piece) {
+		return (piece & BLACK) != 0;
+	}
+
+	/**
+	 * Retrieves the type of a FEN letter, either case.
+	 *
+	 * @param letter The FEN letter.
+	 * @return One of the type constants, EMPTY if the letter is unknown.
+	 */
+	public static int typeOf(char letter) {
+		int index = LETTERS.indexOf(Character.toUpperCase(letter));
+		return index < 0 ? EMPTY : index;
+	}
+
+	/**
+	 * Retrieves the piece code of a FEN letter, upper case for white.
+	 *
+	 * @param letter The FEN letter.
+	 * @return The piece code, EMPTY if the letter is unknown.
+	 */
+	public static int of(char letter) {
+		int type = typeOf(letter);
+		return type == EMPTY || Character.isUpperCase(letter) ? type : type | BLACK;
+	}
+
+	/**
+	 * Retrieves the FEN letter of a piece code.
+	 *
+	 * @param piece The piece code, not EMPTY.
+	 * @return The FEN letter, upper case for white.
+	 */
+	public static char letter(int piece) {
+		char c = LETTERS.charAt(type(piece));
+		return isBlack(piece) ? Character.toLowerCase(c) : c;
+	}
+
+	/**
+	 * Checks if a piece type moves like a knight, alone or combined.
+	 */
+	static boolean leaps(int type) {
+		return type == KNIGHT || type == ARCHBISHOP || type == CHANCELLOR;
+	}
+
+	/**
+	 * Checks if a piece type slides along ranks and files.
+	 */
+	static boolean slidesStraight(int type) {
+		return type == ROOK || type == QUEEN || type == CHANCELLOR;
+	}
+
+	/**
+	 * Checks if a piece type slides along diagonals.
+	 */
+	static boolean slidesDiagonally(int type) {
+		return type == BISHOP || type == QUEEN || type == ARCHBISHOP;
+	}
+}
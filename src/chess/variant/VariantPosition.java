@@ -0,0 +1,435 @@
+package chess.variant;
+
+import java.util.Arrays;
+
+import chess.exception.ChessException;
+
+/**
+ * Position of a {@link Variant} kept as a flat array of piece codes, one per
+ * square, with the side to move, the en passant square and the castling
+ * rights. Moves are played and taken back in place, the state they destroy
+ * kept on an int stack, so walking a move tree allocates nothing once the
+ * stack has grown to the tree depth.
+ */
+public class VariantPosition {
+
+	private static final int UNDO_SIZE = 4;
+
+	private final Variant variant;
+	private final BoardGeometry geometry;
+	final int[] board;
+	private final int[] kings = new int[2];
+	private final int[] castlingRooks = { -1, -1, -1, -1 };
+	private final int[] castlingMasks;
+	private boolean blackToMove;
+	private int enPassant = -1;
+	private int castlingRights;
+	private int fullmove;
+	private int[] undo = new int[64 * UNDO_SIZE];
+	private int ply;
+
+	/**
+	 * Constructs the start position of a variant.
+	 *
+	 * @param variant The variant.
+	 */
+	public VariantPosition(Variant variant) {
+		this(variant, variant.startFen());
+	}
+
+	/**
+	 * Constructs a position of a variant from FEN. Ranks may hold multi-digit
+	 * empty counts, and castling rights are given as KQkq for the outermost
+	 * rooks or as rook file letters.
+	 *
+	 * @param variant The variant.
+	 * @param fen     The FEN string.
+	 * @throws ChessException If the FEN string is invalid for the variant.
+	 */
+	public VariantPosition(Variant variant, String fen) {
+		this.variant = variant;
+		geometry = BoardGeometry.of(variant.getRows(), variant.getColumns());
+		board = new int[geometry.getSquares()];
+		castlingMasks = new int[geometry.getSquares()];
+		Arrays.fill(castlingMasks, 15);
+		Arrays.fill(kings, -1);
+		loadFen(fen);
+	}
+
+	public Variant getVariant() {
+		return variant;
+	}
+
+	public BoardGeometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * Retrieves the piece on a square.
+	 *
+	 * @param square The square index.
+	 * @return The piece code, see {@link VariantPiece}.
+	 */
+	public int piece(int square) {
+		return board[square];
+	}
+
+	public boolean isBlackToMove() {
+		return blackToMove;
+	}
+
+	/**
+	 * Retrieves the square a pawn may capture en passant on.
+	 *
+	 * @return The square skipped by the last double push, or -1.
+	 */
+	public int getEnPassant() {
+		return enPassant;
+	}
+
+	/**
+	 * Retrieves the square of a king.
+	 *
+	 * @param black true for the black king.
+	 * @return The square of the king.
+	 */
+	public int king(boolean black) {
+		return kings[black ? 1 : 0];
+	}
+
+	/**
+	 * Checks if a king may still castle on a side: neither it nor the
+	 * castling rook has moved and the rook was not captured.
+	 *
+	 * @param black    true for the black king.
+	 * @param kingside true for castling towards the last file.
+	 * @return true if the right holds.
+	 */
+	public boolean hasCastlingRight(boolean black, boolean kingside) {
+		return (castlingRights & castlingBit(black, kingside)) != 0;
+	}
+
+	/**
+	 * Retrieves the square of the rook a king castles with.
+	 *
+	 * @param black    true for the black king.
+	 * @param kingside true for castling towards the last file.
+	 * @return The square of the rook, or -1 if that side never had the right.
+	 */
+	public int castlingRook(boolean black, boolean kingside) {
+		return castlingRooks[castlingIndex(black, kingside)];
+	}
+
+	/**
+	 * Plays a move produced by {@link VariantMoveGenerator} for this position.
+	 * Moves that leave the own king in check are played as well; take them
+	 * back with {@link #undoMove()}.
+	 *
+	 * @param move The encoded move.
+	 */
+	public void makeMove(int move) {
+		if ((ply + 1) * UNDO_SIZE > undo.length) {
+			undo = Arrays.copyOf(undo, undo.length * 2);
+		}
+		int base = ply * UNDO_SIZE;
+		int source = VariantMove.source(move);
+		int target = VariantMove.target(move);
+		int color = blackToMove ? VariantPiece.BLACK : 0;
+		int captured = VariantPiece.EMPTY;
+
+		if (VariantMove.isCastling(move)) {
+			boolean kingside = (move & VariantMove.CASTLE_KINGSIDE) != 0;
+			int rook = castlingRook(blackToMove, kingside);
+			int row = geometry.row(source);
+			board[source] = VariantPiece.EMPTY;
+			board[rook] = VariantPiece.EMPTY;
+			board[target] = VariantPiece.KING | color;
+			board[geometry.square(row, variant.castlingRookTarget(kingside))] = VariantPiece.ROOK | color;
+		} else {
+			int piece = board[source];
+			captured = board[target];
+			if ((move & VariantMove.EN_PASSANT) != 0) {
+				int pawn = geometry.square(geometry.row(source), geometry.column(target));
+				captured = board[pawn];
+				board[pawn] = VariantPiece.EMPTY;
+			}
+			int promotion = VariantMove.promotion(move);
+			board[source] = VariantPiece.EMPTY;
+			board[target] = promotion == 0 ? piece : promotion | color;
+		}
+		if (VariantPiece.type(board[target]) == VariantPiece.KING) {
+			kings[blackToMove ? 1 : 0] = target;
+		}
+
+		undo[base] = move;
+		undo[base + 1] = captured;
+		undo[base + 2] = enPassant;
+		undo[base + 3] = castlingRights;
+		ply++;
+		enPassant = (move & VariantMove.DOUBLE_PUSH) != 0 ? (source + target) / 2 : -1;
+		castlingRights &= castlingMasks[source] & castlingMasks[target];
+		if (blackToMove) {
+			fullmove++;
+		}
+		blackToMove = !blackToMove;
+	}
+
+	/**
+	 * Takes back the last move played with {@link #makeMove(int)}.
+	 */
+	public void undoMove() {
+		ply--;
+		int base = ply * UNDO_SIZE;
+		int move = undo[base];
+		int captured = undo[base + 1];
+		enPassant = undo[base + 2];
+		castlingRights = undo[base + 3];
+		blackToMove = !blackToMove;
+		if (blackToMove) {
+			fullmove--;
+		}
+		int source = VariantMove.source(move);
+		int target = VariantMove.target(move);
+		int color = blackToMove ? VariantPiece.BLACK : 0;
+
+		if (VariantMove.isCastling(move)) {
+			boolean kingside = (move & VariantMove.CASTLE_KINGSIDE) != 0;
+			int row = geometry.row(source);
+			board[target] = VariantPiece.EMPTY;
+			board[geometry.square(row, variant.castlingRookTarget(kingside))] = VariantPiece.EMPTY;
+			board[source] = VariantPiece.KING | color;
+			board[castlingRook(blackToMove, kingside)] = VariantPiece.ROOK | color;
+		} else {
+			int piece = VariantMove.promotion(move) == 0 ? board[target] : VariantPiece.PAWN | color;
+			board[source] = piece;
+			if ((move & VariantMove.EN_PASSANT) != 0) {
+				board[target] = VariantPiece.EMPTY;
+				board[geometry.square(geometry.row(source), geometry.column(target))] = captured;
+			} else {
+				board[target] = captured;
+			}
+		}
+		if (VariantPiece.type(board[source]) == VariantPiece.KING) {
+			kings[blackToMove ? 1 : 0] = source;
+		}
+	}
+
+	/**
+	 * Checks if a square is attacked by a side, looking outwards from the
+	 * square along the precomputed knight, king, pawn and ray tables.
+	 *
+	 * @param square  The square index.
+	 * @param byBlack true for attacks by black pieces.
+	 * @return true if a piece of that side attacks the square.
+	 */
+	public boolean isAttacked(int square, boolean byBlack) {
+		int color = byBlack ? VariantPiece.BLACK : 0;
+		for (int from : geometry.pawnCaptures(!byBlack, square)) {
+			if (board[from] == (VariantPiece.PAWN | color)) {
+				return true;
+			}
+		}
+		for (int from : geometry.knightTargets(square)) {
+			int p = board[from];
+			if (p != VariantPiece.EMPTY && (p & VariantPiece.BLACK) == color && VariantPiece.leaps(VariantPiece.type(p))) {
+				return true;
+			}
+		}
+		for (int from : geometry.kingTargets(square)) {
+			if (board[from] == (VariantPiece.KING | color)) {
+				return true;
+			}
+		}
+		for (int d = 0; d < BoardGeometry.DIRECTIONS.length; d++) {
+			for (int from : geometry.ray(square, d)) {
+				int p = board[from];
+				if (p == VariantPiece.EMPTY) {
+					continue;
+				}
+				int type = VariantPiece.type(p);
+				if ((p & VariantPiece.BLACK) == color
+						&& (d < 4 ? VariantPiece.slidesStraight(type) : VariantPiece.slidesDiagonally(type))) {
+					return true;
+				}
+				break;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a king is attacked.
+	 *
+	 * @param black true for the black king.
+	 * @return true if the king is in check.
+	 */
+	public boolean isInCheck(boolean black) {
+		return isAttacked(king(black), !black);
+	}
+
+	/**
+	 * Retrieves the position in FEN, castling rights written as KQkq when the
+	 * castling rook is the outermost one and as its file letter otherwise.
+	 *
+	 * @return The FEN string.
+	 */
+	public String toFen() {
+		StringBuilder sb = new StringBuilder();
+		for (int row = 0; row < geometry.getRows(); row++) {
+			int empty = 0;
+			for (int column = 0; column < geometry.getColumns(); column++) {
+				int p = board[geometry.square(row, column)];
+				if (p == VariantPiece.EMPTY) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					sb.append(empty);
+					empty = 0;
+				}
+				sb.append(VariantPiece.letter(p));
+			}
+			if (empty > 0) {
+				sb.append(empty);
+			}
+			if (row < geometry.getRows() - 1) {
+				sb.append('/');
+			}
+		}
+		sb.append(blackToMove ? " b " : " w ");
+		int length = sb.length();
+		for (int i = 0; i < 4; i++) {
+			boolean black = i >= 2;
+			boolean kingside = i % 2 == 0;
+			if (hasCastlingRight(black, kingside)) {
+				int rook = castlingRook(black, kingside);
+				char c = rook == outermostRook(black, kingside) ? (kingside ? 'K' : 'Q')
+						: (char) ('A' + geometry.column(rook));
+				sb.append(black ? Character.toLowerCase(c) : c);
+			}
+		}
+		if (sb.length() == length) {
+			sb.append('-');
+		}
+		sb.append(' ').append(enPassant < 0 ? "-" : geometry.name(enPassant));
+		sb.append(" 0 ").append(fullmove);
+		return sb.toString();
+	}
+
+	private void loadFen(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		String[] ranks = fields[0].split("/");
+		if (fields.length < 2 || ranks.length != geometry.getRows()) {
+			throw new ChessException("Invalid FEN: " + fen);
+		}
+		for (int row = 0; row < ranks.length; row++) {
+			int column = 0;
+			String rank = ranks[row];
+			for (int i = 0; i < rank.length(); i++) {
+				char c = rank.charAt(i);
+				if (Character.isDigit(c)) {
+					int count = c - '0';
+					while (i + 1 < rank.length() && Character.isDigit(rank.charAt(i + 1))) {
+						count = count * 10 + rank.charAt(++i) - '0';
+					}
+					column += count;
+					continue;
+				}
+				int piece = VariantPiece.of(c);
+				if (piece == VariantPiece.EMPTY || column >= geometry.getColumns()) {
+					throw new ChessException("Invalid FEN: " + fen);
+				}
+				int square = geometry.square(row, column++);
+				board[square] = piece;
+				if (VariantPiece.type(piece) == VariantPiece.KING) {
+					if (kings[VariantPiece.isBlack(piece) ? 1 : 0] >= 0) {
+						throw new ChessException("Invalid FEN, more than one king: " + fen);
+					}
+					kings[VariantPiece.isBlack(piece) ? 1 : 0] = square;
+				}
+			}
+			if (column != geometry.getColumns()) {
+				throw new ChessException("Invalid FEN: " + fen);
+			}
+		}
+		if (kings[0] < 0 || kings[1] < 0) {
+			throw new ChessException("Invalid FEN, missing king: " + fen);
+		}
+
+		blackToMove = fields[1].equals("b");
+		if (fields.length > 2 && variant.hasCastling()) {
+			loadCastlingRights(fields[2], fen);
+		}
+		if (fields.length > 3 && !fields[3].equals("-")) {
+			try {
+				enPassant = geometry.parse(fields[3]);
+			} catch (IllegalArgumentException e) {
+				throw new ChessException("Invalid FEN: " + fen);
+			}
+		}
+		fullmove = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+	}
+
+	private void loadCastlingRights(String castling, String fen) {
+		if (castling.equals("-")) {
+			return;
+		}
+		for (char c : castling.toCharArray()) {
+			boolean black = Character.isLowerCase(c);
+			char letter = Character.toUpperCase(c);
+			int homeRow = black ? 0 : geometry.getRows() - 1;
+			int king = king(black);
+			if (geometry.row(king) != homeRow) {
+				continue;
+			}
+			int rook;
+			if (letter == 'K' || letter == 'Q') {
+				rook = outermostRook(black, letter == 'K');
+			} else if (letter >= 'A' && letter < 'A' + geometry.getColumns()) {
+				rook = geometry.square(homeRow, letter - 'A');
+				if (board[rook] != (VariantPiece.ROOK | (black ? VariantPiece.BLACK : 0))) {
+					rook = -1;
+				}
+			} else {
+				throw new ChessException("Invalid FEN castling '" + c + "': " + fen);
+			}
+			if (rook < 0 || rook == king) {
+				continue;
+			}
+			boolean kingside = rook > king;
+			int bit = castlingBit(black, kingside);
+			castlingRooks[castlingIndex(black, kingside)] = rook;
+			castlingRights |= bit;
+			castlingMasks[rook] &= ~bit;
+			castlingMasks[king] &= ~(castlingBit(black, true) | castlingBit(black, false));
+		}
+	}
+
+	/**
+	 * Finds the rook of a side farthest from its king on the home rank, or -1.
+	 */
+	private int outermostRook(boolean black, boolean kingside) {
+		int king = king(black);
+		int homeRow = black ? 0 : geometry.getRows() - 1;
+		if (geometry.row(king) != homeRow) {
+			return -1;
+		}
+		int rook = VariantPiece.ROOK | (black ? VariantPiece.BLACK : 0);
+		int step = kingside ? -1 : 1;
+		int column = kingside ? geometry.getColumns() - 1 : 0;
+		for (; column != geometry.column(king); column += step) {
+			if (board[geometry.square(homeRow, column)] == rook) {
+				return geometry.square(homeRow, column);
+			}
+		}
+		return -1;
+	}
+
+	private static int castlingIndex(boolean black, boolean kingside) {
+		return (black ? 2 : 0) + (kingside ? 0 : 1);
+	}
+
+	private static int castlingBit(boolean black, boolean kingside) {
+		return 1 << castlingIndex(black, kingside);
+	}
+}
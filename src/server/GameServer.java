@@ -0,0 +1,260 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Hosts many chess matches in one JVM behind a small HTTP API:
+ *
+ * <pre>
+ * POST   /matches                                  create a match
+ * GET    /matches/{id}                             state of a match
+ * POST   /matches/{id}/moves?from=e7&amp;to=e8&amp;promotion=Q  submit a move
+ * DELETE /matches/{id}                             remove a match
+ * GET    /stats                                    match count and memory
+ * </pre>
+ *
+ * Matches are actors on a shared pool sized to the CPU count, so the number of
+ * live matches is bounded by heap, not by threads. Matches idle for longer
+ * than {@link #DEFAULT_IDLE_MILLIS} are hibernated into their compact form.
+ * With {@link #enableLog(Path)} the matches are made durable in a
+ * {@link MoveLog} and recovered from it on the next start.
+ */
+public class GameServer {
+
+	public static final int DEFAULT_PORT = 8080;
+	public static final long DEFAULT_IDLE_MILLIS = 60_000;
+	public static final long SNAPSHOT_INTERVAL_MILLIS = 300_000;
+
+	private final MatchRegistry registry;
+	private final ExecutorService matchExecutor;
+	private final ScheduledExecutorService sweeper;
+	private HttpServer http;
+	private ExecutorService httpExecutor;
+	private MoveLog log;
+
+	/**
+	 * Constructs a server whose matches run on a pool with one thread per CPU.
+	 */
+	public GameServer() {
+		matchExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			Thread thread = new Thread(r, "match-actor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		registry = new MatchRegistry(matchExecutor);
+		sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "match-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(() -> registry.hibernateIdle(DEFAULT_IDLE_MILLIS), DEFAULT_IDLE_MILLIS / 2,
+				DEFAULT_IDLE_MILLIS / 2, TimeUnit.MILLISECONDS);
+	}
+
+	public MatchRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Makes the hosted matches durable: recovers the matches stored in a log
+	 * directory, then logs every change and snapshots periodically. Must be
+	 * called before any match is created.
+	 *
+	 * @param directory The log directory.
+	 * @return The number of recovered matches.
+	 * @throws IOException If the log cannot be read or written.
+	 */
+	public int enableLog(Path directory) throws IOException {
+		log = MoveLog.open(directory);
+		int recovered = log.recover(registry);
+		registry.attach(log);
+		sweeper.scheduleWithFixedDelay(this::snapshot, SNAPSHOT_INTERVAL_MILLIS, SNAPSHOT_INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+		return recovered;
+	}
+
+	private void snapshot() {
+		// Anything thrown here would cancel the scheduled snapshots for good
+		try {
+			log.snapshot(registry);
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Snapshot failed: " + e);
+		}
+	}
+
+	/**
+	 * Submits a move to a hosted match.
+	 *
+	 * @param id        The match id.
+	 * @param source    The source square, e.g. "e2".
+	 * @param target    The target square, e.g. "e4".
+	 * @param promotion The promotion piece type or null.
+	 * @return A future completed with the outcome, or null if there is no match
+	 *         with that id.
+	 */
+	public CompletableFuture<MoveResult> submitMove(long id, String source, String target, String promotion) {
+		HostedMatch match = registry.get(id);
+		return match == null ? null : match.submitMove(source, target, promotion);
+	}
+
+	/**
+	 * Starts serving the HTTP API.
+	 *
+	 * @param port The TCP port to listen on, on the loopback address only.
+	 * @throws IOException If the port cannot be bound.
+	 */
+	public void start(int port) throws IOException {
+		http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		http.createContext("/matches", this::handleMatches);
+		http.createContext("/stats", exchange -> respond(exchange, 200,
+				"{\"matches\":" + registry.size() + ",\"estimatedBytes\":" + registry.estimatedBytes() + "}"));
+		httpExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+			Thread thread = new Thread(r, "http");
+			thread.setDaemon(true);
+			return thread;
+		});
+		http.setExecutor(httpExecutor);
+		http.start();
+	}
+
+	/**
+	 * Stops the HTTP API, the match actors and the move log.
+	 */
+	public void stop() {
+		if (http != null) {
+			http.stop(0);
+			httpExecutor.shutdown();
+		}
+		sweeper.shutdown();
+		matchExecutor.shutdown();
+		if (log != null) {
+			try {
+				log.close();
+			} catch (IOException e) {
+				System.err.println("Closing the move log failed: " + e.getMessage());
+			}
+		}
+	}
+
+	private void handleMatches(HttpExchange exchange) throws IOException {
+		String[] path = exchange.getRequestURI().getPath().split("/");
+		String method = exchange.getRequestMethod();
+		if (path.length == 2 && method.equals("POST")) {
+			HostedMatch created;
+			try {
+				created = registry.create();
+			} catch (IllegalStateException e) {
+				respond(exchange, 503, "{\"error\":\"Move log unavailable\"}");
+				return;
+			}
+			respond(exchange, 201, "{\"id\":" + created.getId() + "}");
+			return;
+		}
+
+		HostedMatch match = null;
+		if (path.length >= 3) {
+			try {
+				match = registry.get(Long.parseLong(path[2]));
+			} catch (NumberFormatException e) {
+				// Answered as not found below
+			}
+		}
+		if (match == null) {
+			respond(exchange, 404, "{\"error\":\"No such match\"}");
+			return;
+		}
+
+		if (path.length == 3 && method.equals("GET")) {
+			reply(exchange, match.ask(MoveResult::state));
+		} else if (path.length == 3 && method.equals("DELETE")) {
+			try {
+				registry.remove(match.getId());
+			} catch (IllegalStateException e) {
+				respond(exchange, 503, "{\"error\":\"Move log unavailable\"}");
+				return;
+			}
+			respond(exchange, 204, "");
+		} else if (path.length == 4 && path[3].equals("moves") && method.equals("POST")) {
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			reply(exchange, match.submitMove(query.get("from"), query.get("to"), query.get("promotion")));
+		} else {
+			respond(exchange, 405, "{\"error\":\"Unsupported request\"}");
+		}
+	}
+
+	/**
+	 * Answers once the match actor has produced its result, without blocking
+	 * the HTTP thread meanwhile.
+	 */
+	private static void reply(HttpExchange exchange, CompletableFuture<MoveResult> result) {
+		result.whenComplete((r, e) -> {
+			try {
+				if (e != null) {
+					respond(exchange, 500, "{\"error\":\"" + e.getClass().getSimpleName() + "\"}");
+				} else {
+					respond(exchange, r.isAccepted() ? 200 : 422, r.toJson());
+				}
+			} catch (IOException io) {
+				exchange.close();
+			}
+		});
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static Map<String, String> query(String rawQuery) {
+		Map<String, String> params = new HashMap<>();
+		if (rawQuery == null) {
+			return params;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Main method that starts a game server.
+	 *
+	 * @param args An optional port number and an optional log directory.
+	 * @throws IOException If the port cannot be bound or the log cannot be
+	 *                     opened.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		GameServer server = new GameServer();
+		if (args.length > 1) {
+			System.out.println("Recovered " + server.enableLog(Paths.get(args[1])) + " matches");
+		}
+		server.start(port);
+		System.out.println("Game server listening on port " + port);
+	}
+}
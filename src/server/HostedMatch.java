@@ -0,0 +1,370 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import chess.ChessMatch;
+import chess.CompactMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveRejection;
+
+/**
+ * A chess match hosted by the {@link GameServer}. Each hosted match behaves as
+ * an actor: requests are queued in its mailbox and run one at a time on a
+ * shared executor, so the match is never touched by two threads at once and no
+ * thread is held while the match is idle.
+ *
+ * A match left idle can be {@link #hibernate() hibernated}: its ChessMatch is
+ * dropped in favour of a {@link CompactMatch} and rebuilt on the next request.
+ *
+ * With a move log attached, the compact state before each move is kept until
+ * the move is durable. If the log fails to write a move, the match is rewound
+ * to that state and the moves played on top of it fail as well.
+ */
+public class HostedMatch {
+
+	/**
+	 * Rough heap cost of a ChessMatch with its Board, the 8x8 piece matrix and
+	 * empty lists, with compressed references.
+	 */
+	static final long MATCH_BASE_BYTES = 1_024;
+	static final long PIECE_BYTES = 56;
+	static final long REFERENCE_BYTES = 4;
+	/** Rough heap cost of a hibernated match besides its packed data. */
+	static final long HIBERNATED_BASE_BYTES = 160;
+
+	private static final int MAILBOX_BATCH = 64;
+
+	private final long id;
+	private final Executor executor;
+	private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private ChessMatch match;
+	private CompactMatch compact;
+	private List<ChessPiece> captured = new ArrayList<>();
+	private short[] history = new short[16];
+	private int historySize;
+	/** States before the logged moves not yet durable, oldest first. */
+	private final ArrayDeque<CompactMatch> unconfirmed = new ArrayDeque<>();
+	private int rewinds;
+	private volatile int moves;
+	private volatile MoveLog log;
+	private volatile long lastActivity = System.currentTimeMillis();
+	private volatile long estimatedBytes;
+
+	/**
+	 * Constructs a hosted match.
+	 *
+	 * @param id       The match id.
+	 * @param match    The chess match to host.
+	 * @param executor The executor shared by all hosted matches.
+	 */
+	public HostedMatch(long id, ChessMatch match, Executor executor) {
+		this.id = id;
+		this.match = match;
+		this.executor = executor;
+		updateEstimatedBytes();
+	}
+
+	/**
+	 * Constructs a hosted match restored in its compact form.
+	 */
+	HostedMatch(long id, CompactMatch compact, Executor executor) {
+		this.id = id;
+		this.compact = compact;
+		this.executor = executor;
+		this.captured = null;
+		this.history = null;
+		this.moves = compact.getHistorySize();
+		updateEstimatedBytes();
+	}
+
+	/**
+	 * Attaches the log that accepted moves are written to before they are
+	 * acknowledged.
+	 */
+	void setLog(MoveLog log) {
+		this.log = log;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public int getMoves() {
+		return moves;
+	}
+
+	public long getLastActivity() {
+		return lastActivity;
+	}
+
+	/**
+	 * Retrieves the estimated heap footprint of the match, updated after every
+	 * request.
+	 *
+	 * @return The estimate in bytes.
+	 */
+	public long getEstimatedBytes() {
+		return estimatedBytes;
+	}
+
+	/**
+	 * Checks if the match is currently held in its compact form.
+	 *
+	 * @return true if the match is hibernated, false otherwise.
+	 */
+	public boolean isHibernated() {
+		return compact != null;
+	}
+
+	/**
+	 * Retrieves the moves played so far, inside the actor.
+	 *
+	 * @return The moves in "e2e4" form, promotions suffixed with the piece type.
+	 */
+	public CompletableFuture<List<String>> history() {
+		return ask(m -> {
+			List<String> played = new ArrayList<>(historySize);
+			for (int i = 0; i < historySize; i++) {
+				played.add(CompactMatch.decodeMove(history[i]));
+			}
+			return played;
+		});
+	}
+
+	/**
+	 * Swaps the match into its compact form, inside the actor. The match is
+	 * re-inflated by the next request, so this is invisible to clients.
+	 *
+	 * @return A future completed once the match is hibernated.
+	 */
+	public CompletableFuture<Void> hibernate() {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		mailbox.add(() -> {
+			if (match != null) {
+				compact = pack();
+				match = null;
+				captured = null;
+				history = null;
+				updateEstimatedBytes();
+			}
+			future.complete(null);
+		});
+		schedule();
+		return future;
+	}
+
+	/**
+	 * Retrieves the compact form of the match, inside the actor, without
+	 * inflating a hibernated match.
+	 *
+	 * @return A future completed with the compact form.
+	 */
+	public CompletableFuture<CompactMatch> snapshot() {
+		CompletableFuture<CompactMatch> future = new CompletableFuture<>();
+		mailbox.add(() -> future.complete(compact != null ? compact : pack()));
+		schedule();
+		return future;
+	}
+
+	/**
+	 * Runs a function against the match inside the actor.
+	 *
+	 * @param <T>     The result type.
+	 * @param request The function to run; it must not keep the match.
+	 * @return A future completed with the function result.
+	 */
+	public <T> CompletableFuture<T> ask(Function<ChessMatch, T> request) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		mailbox.add(() -> {
+			try {
+				inflate();
+				future.complete(request.apply(match));
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+			lastActivity = System.currentTimeMillis();
+			updateEstimatedBytes();
+		});
+		schedule();
+		return future;
+	}
+
+	/**
+	 * Submits a move.
+	 *
+	 * @param source    The source square, e.g. "e2".
+	 * @param target    The target square, e.g. "e4".
+	 * @param promotion The promotion piece type ("B", "N", "R", "Q", in either
+	 *                  case) or null for a queen.
+	 * @return A future completed with the outcome of the move, once an accepted
+	 *         move is durable in the move log if there is one, or completed
+	 *         exceptionally if the log failed to write it.
+	 */
+	public CompletableFuture<MoveResult> submitMove(String source, String target, String promotion) {
+		return ask(m -> {
+			if (m.getCheckMate()) {
+				return CompletableFuture.completedFuture(MoveResult.rejected(m, "The match is over"));
+			}
+			ChessPosition from = square(source);
+			ChessPosition to = square(target);
+			if (from == null || to == null) {
+				return CompletableFuture.completedFuture(
+						MoveResult.rejected(m, "Invalid square: " + (from == null ? source : target)));
+			}
+			String promotedTo = promotion == null ? "Q" : promotion.toUpperCase();
+			if (promotedTo.length() != 1 || "BNRQ".indexOf(promotedTo.charAt(0)) < 0) {
+				return CompletableFuture.completedFuture(MoveResult.rejected(m, "Invalid promotion: " + promotion));
+			}
+			MoveLog current = log;
+			CompactMatch before = current == null ? null : pack();
+			// Routine rejections come back as values, without building an exception
+			MoveRejection rejection = m.tryChessMove(from, to);
+			if (rejection != null) {
+				return CompletableFuture.completedFuture(MoveResult.rejected(m, rejection.getMessage()));
+			}
+			ChessPiece capturedPiece = m.getLastCaptured();
+			if (capturedPiece != null) {
+				captured.add(capturedPiece);
+			}
+			if (m.getPromoted() == null) {
+				promotedTo = null;
+			} else if (!promotedTo.equals("Q")) {
+				m.replacePromotedPiece(promotedTo);
+			}
+			if (historySize == history.length) {
+				history = Arrays.copyOf(history, historySize * 2);
+			}
+			short move = CompactMatch.encodeMove(from, to, promotedTo);
+			history[historySize++] = move;
+			moves++;
+			// Built after the promotion, which may change check and checkmate
+			MoveResult result = MoveResult.accepted(m, capturedPiece);
+			if (current == null) {
+				return CompletableFuture.completedFuture(result);
+			}
+			CompletableFuture<Long> appended;
+			try {
+				appended = current.appendMove(id, historySize - 1, move);
+			} catch (IllegalStateException e) {
+				// A closed or failed log takes no records, so the move is undone
+				rewind(before);
+				throw e;
+			}
+			unconfirmed.add(before);
+			int generation = rewinds;
+			return appended.handle((offset, failure) -> ask(m2 -> settle(generation, failure, result)))
+					.thenCompose(settled -> settled);
+		}).thenCompose(result -> result);
+	}
+
+	/**
+	 * Settles a logged move once its append completed, inside the actor. The log
+	 * completes appends in order, so the oldest unconfirmed state is the one
+	 * before this move. A failed append rewinds the match to it.
+	 */
+	private MoveResult settle(int generation, Throwable failure, MoveResult result) {
+		if (generation != rewinds) {
+			throw new IllegalStateException("The match was rewound after a failed log write");
+		}
+		CompactMatch before = unconfirmed.poll();
+		if (failure == null) {
+			return result;
+		}
+		rewinds++;
+		unconfirmed.clear();
+		rewind(before);
+		throw new IllegalStateException("The move could not be logged", failure);
+	}
+
+	private void rewind(CompactMatch before) {
+		compact = before;
+		match = null;
+		inflate();
+		moves = historySize;
+	}
+
+	/**
+	 * Retrieves the pieces captured so far, inside the actor.
+	 *
+	 * @return A copy of the captured pieces.
+	 */
+	public CompletableFuture<List<ChessPiece>> capturedPieces() {
+		return ask(m -> new ArrayList<>(captured));
+	}
+
+	/**
+	 * Parses a square such as "e4", returning null instead of throwing when it
+	 * is invalid.
+	 */
+	private static ChessPosition square(String square) {
+		if (square == null || square.length() != 2 || square.charAt(0) < 'a' || square.charAt(0) > 'h'
+				|| square.charAt(1) < '1' || square.charAt(1) > '8') {
+			return null;
+		}
+		return ChessPosition.of(square.charAt(0), square.charAt(1) - '0');
+	}
+
+	private CompactMatch pack() {
+		return CompactMatch.of(match, captured, Arrays.copyOf(history, historySize));
+	}
+
+	private void inflate() {
+		if (compact != null) {
+			match = compact.inflate();
+			captured = compact.capturedPieces(match);
+			short[] played = compact.getHistory();
+			history = Arrays.copyOf(played, Math.max(16, played.length));
+			historySize = played.length;
+			compact = null;
+		}
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Runs a batch of queued requests, then yields the executor thread so that
+	 * a busy match cannot starve the others. The match is released even when a
+	 * request throws an Error, which would otherwise leave it scheduled forever
+	 * with its mailbox never drained again.
+	 */
+	private void drain() {
+		try {
+			for (int i = 0; i < MAILBOX_BATCH; i++) {
+				Runnable request = mailbox.poll();
+				if (request == null) {
+					break;
+				}
+				request.run();
+			}
+		} finally {
+			scheduled.set(false);
+			if (!mailbox.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+	private void updateEstimatedBytes() {
+		if (compact != null) {
+			estimatedBytes = HIBERNATED_BASE_BYTES + compact.sizeInBytes();
+			return;
+		}
+		estimatedBytes = MATCH_BASE_BYTES + history.length * 2 + match.getPieceCount() * PIECE_BYTES
+				+ captured.size() * (PIECE_BYTES + REFERENCE_BYTES);
+	}
+}
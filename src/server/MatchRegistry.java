@@ -0,0 +1,152 @@
+package server;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessMatch;
+import chess.CompactMatch;
+
+/**
+ * Registry of the matches hosted by a server, keyed by match id.
+ */
+public class MatchRegistry {
+
+	private final Map<Long, HostedMatch> matches = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final Executor executor;
+	private volatile MoveLog log;
+
+	/**
+	 * Constructs a registry.
+	 *
+	 * @param executor The executor running the mailboxes of all matches.
+	 */
+	public MatchRegistry(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Attaches a move log: every hosted match, existing or future, logs its
+	 * creation, accepted moves and removal to it.
+	 *
+	 * @param log The move log, already recovered into this registry.
+	 */
+	public void attach(MoveLog log) {
+		this.log = log;
+		for (HostedMatch match : matches.values()) {
+			match.setLog(log);
+		}
+	}
+
+	/**
+	 * Creates and registers a match from the standard starting position.
+	 *
+	 * @return The hosted match.
+	 */
+	public HostedMatch create() {
+		return register(new ChessMatch());
+	}
+
+	/**
+	 * Registers an existing match under a new id.
+	 *
+	 * @param match The chess match; it must not be used elsewhere afterwards.
+	 * @return The hosted match.
+	 * @throws IllegalStateException If the move log rejects the creation.
+	 */
+	public HostedMatch register(ChessMatch match) {
+		long id = nextId.getAndIncrement();
+		HostedMatch hosted = new HostedMatch(id, match, executor);
+		MoveLog current = log;
+		if (current != null) {
+			current.appendCreate(id, match);
+			hosted.setLog(current);
+		}
+		matches.put(id, hosted);
+		return hosted;
+	}
+
+	/**
+	 * Registers a match recovered from a move log under its original id.
+	 */
+	HostedMatch restore(long id, CompactMatch compact) {
+		HostedMatch hosted = new HostedMatch(id, compact, executor);
+		matches.put(id, hosted);
+		nextId.accumulateAndGet(id + 1, Math::max);
+		return hosted;
+	}
+
+	/**
+	 * Retrieves a hosted match.
+	 *
+	 * @param id The match id.
+	 * @return The hosted match, or null if there is none with that id.
+	 */
+	public HostedMatch get(long id) {
+		return matches.get(id);
+	}
+
+	/**
+	 * Removes a hosted match.
+	 *
+	 * @param id The match id.
+	 * @return The removed match, or null if there was none with that id.
+	 * @throws IllegalStateException If the move log rejects the removal.
+	 */
+	public HostedMatch remove(long id) {
+		MoveLog current = log;
+		if (current != null && matches.containsKey(id)) {
+			// Logged first, so a log that rejects the removal keeps the match
+			current.appendRemove(id);
+		}
+		return matches.remove(id);
+	}
+
+	public int size() {
+		return matches.size();
+	}
+
+	/**
+	 * Retrieves a live, unmodifiable view of the hosted matches.
+	 *
+	 * @return The hosted matches.
+	 */
+	public Collection<HostedMatch> matches() {
+		return Collections.unmodifiableCollection(matches.values());
+	}
+
+	/**
+	 * Hibernates the matches that have been idle for a while.
+	 *
+	 * @param idleMillis The idle time after which a match is hibernated.
+	 * @return The number of matches sent to hibernation.
+	 */
+	public int hibernateIdle(long idleMillis) {
+		long cutoff = System.currentTimeMillis() - idleMillis;
+		int count = 0;
+		for (HostedMatch match : matches.values()) {
+			if (!match.isHibernated() && match.getLastActivity() < cutoff) {
+				match.hibernate();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sums the estimated heap footprint of all hosted matches.
+	 *
+	 * @return The estimate in bytes.
+	 */
+	public long estimatedBytes() {
+		long total = 0;
+		for (HostedMatch match : matches.values()) {
+			total += match.getEstimatedBytes();
+		}
+		return total;
+	}
+}
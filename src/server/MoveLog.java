@@ -0,0 +1,452 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+import chess.ChessMatch;
+import chess.CompactMatch;
+
+/**
+ * Write-ahead, event-sourced log of the hosted matches. Every created match,
+ * accepted move and removed match is appended as a record; a single writer
+ * thread batches whatever records are queued into one write and one
+ * {@link FileChannel#force(boolean) fsync} (group commit) before completing
+ * their futures.
+ *
+ * The log is split into numbered segments. A {@link #snapshot(MatchRegistry)
+ * snapshot} starts a new segment, stores the compact form of every match and
+ * deletes the older segments, so recovery only loads the latest snapshot and
+ * replays the segments written after it.
+ *
+ * Records are framed as length, CRC32 and payload, so a record torn by a crash
+ * ends the replay of its segment instead of corrupting it.
+ *
+ * A failed write or fsync leaves it unknown which records of the batch reached
+ * the disk, so the log then fails closed: every append is rejected until the
+ * next snapshot has replaced the segments that may hold them. Otherwise a move
+ * reported as failed could be replayed, and the move later accepted at the
+ * same index dropped as its duplicate.
+ */
+public class MoveLog implements Closeable {
+
+	private static final byte CREATE = 1;
+	private static final byte MOVE = 2;
+	private static final byte REMOVE = 3;
+
+	private static final int RECORD = 0;
+	private static final int ROLL = 1;
+	private static final int RESUME = 2;
+	private static final int STOP = 3;
+
+	private static final int SNAPSHOT_MAGIC = 0x43484e53;
+	private static final int MAX_BATCH = 4_096;
+
+	private final Path directory;
+	private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+	private final Thread writer;
+	private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+	private FileChannel channel;
+	private long segment;
+	private volatile boolean closed;
+	/** Set by the writer after a failed write, cleared after a snapshot. */
+	private volatile boolean broken;
+	/** Records failed by the writer so far, only touched by the writer. */
+	private long failures;
+
+	/**
+	 * A queued record, or a control request for the writer: start a new
+	 * segment, accept records again after a snapshot, or stop.
+	 */
+	private static final class Entry {
+		final byte[] payload;
+		final int kind;
+		/**
+		 * The failure count of the writer when a roll was done, which a resume
+		 * must still find for the log to accept records again.
+		 */
+		long failures;
+		final CompletableFuture<Long> done = new CompletableFuture<>();
+
+		Entry(byte[] payload, int kind) {
+			this.payload = payload;
+			this.kind = kind;
+		}
+	}
+
+	private MoveLog(Path directory, long segment) throws IOException {
+		this.directory = directory;
+		this.segment = segment;
+		channel = openSegment(segment);
+		writer = new Thread(this::writeLoop, "move-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Opens the log stored in a directory, creating it if needed. Records are
+	 * appended to a new segment after the existing ones.
+	 *
+	 * @param directory The log directory.
+	 * @return The log.
+	 * @throws IOException If the directory cannot be read or written.
+	 */
+	public static MoveLog open(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		long last = -1;
+		for (long seq : files(directory, "segment-").keySet()) {
+			last = Math.max(last, seq);
+		}
+		for (long seq : files(directory, "snapshot-").keySet()) {
+			last = Math.max(last, seq);
+		}
+		return new MoveLog(directory, last + 1);
+	}
+
+	/**
+	 * Restores the matches stored in the log into an empty registry: loads the
+	 * latest snapshot, with matches kept hibernated, then replays the later
+	 * records through {@link HostedMatch#submitMove(String, String, String)},
+	 * in parallel across matches. Must be called before the log is attached to
+	 * the registry.
+	 *
+	 * @param registry The registry to restore into.
+	 * @return The number of matches restored.
+	 * @throws IOException If the log cannot be read.
+	 */
+	public int recover(MatchRegistry registry) throws IOException {
+		Map<Long, Integer> plies = new HashMap<>();
+		TreeMap<Long, Path> snapshots = files(directory, "snapshot-");
+		long first = 0;
+		if (!snapshots.isEmpty()) {
+			first = snapshots.lastKey();
+			ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshots.lastEntry().getValue()));
+			if (in.getInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("Not a snapshot: " + snapshots.lastEntry().getValue());
+			}
+			int count = in.getInt();
+			for (int i = 0; i < count; i++) {
+				long id = in.getLong();
+				CompactMatch compact = CompactMatch.read(in);
+				registry.restore(id, compact);
+				plies.put(id, compact.getHistorySize());
+			}
+		}
+
+		List<CompletableFuture<MoveResult>> pending = new ArrayList<>();
+		for (Map.Entry<Long, Path> file : files(directory, "segment-").tailMap(first).entrySet()) {
+			if (file.getKey() >= segment) {
+				continue;
+			}
+			ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file.getValue()));
+			CRC32 crc = new CRC32();
+			while (in.remaining() >= 8) {
+				int length = in.getInt();
+				int checksum = in.getInt();
+				if (length <= 0 || length > in.remaining()) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				in.get(payload);
+				crc.reset();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum) {
+					break;
+				}
+				replay(ByteBuffer.wrap(payload), registry, plies, pending);
+			}
+		}
+		CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+		return registry.size();
+	}
+
+	private static void replay(ByteBuffer record, MatchRegistry registry, Map<Long, Integer> plies,
+			List<CompletableFuture<MoveResult>> pending) {
+		byte type = record.get();
+		long id = record.getLong();
+		if (type == CREATE) {
+			if (!plies.containsKey(id)) {
+				CompactMatch compact = CompactMatch.read(record);
+				registry.restore(id, compact);
+				plies.put(id, compact.getHistorySize());
+			}
+		} else if (type == REMOVE) {
+			registry.remove(id);
+			plies.remove(id);
+		} else if (type == MOVE) {
+			int ply = record.getInt();
+			Integer expected = plies.get(id);
+			HostedMatch match = registry.get(id);
+			if (match != null && expected != null && ply == expected) {
+				String move = CompactMatch.decodeMove(record.getShort());
+				pending.add(match.submitMove(move.substring(0, 2), move.substring(2, 4),
+						move.length() > 4 ? move.substring(4) : null));
+				plies.put(id, ply + 1);
+			}
+		}
+	}
+
+	/**
+	 * Appends the creation of a match.
+	 *
+	 * @param id    The match id.
+	 * @param match The initial state of the match.
+	 * @return A future completed once the record is durable.
+	 */
+	public CompletableFuture<Long> appendCreate(long id, ChessMatch match) {
+		byte[] state = CompactMatch.of(match, List.of(), new short[0]).toByteArray();
+		return append(ByteBuffer.allocate(9 + state.length).put(CREATE).putLong(id).put(state).array());
+	}
+
+	/**
+	 * Appends an accepted move.
+	 *
+	 * @param id   The match id.
+	 * @param ply  The index of the move in the match history.
+	 * @param move The move, encoded with
+	 *             {@link CompactMatch#encodeMove(chess.ChessPosition, chess.ChessPosition, String)}.
+	 * @return A future completed once the record is durable.
+	 */
+	public CompletableFuture<Long> appendMove(long id, int ply, short move) {
+		return append(ByteBuffer.allocate(15).put(MOVE).putLong(id).putInt(ply).putShort(move).array());
+	}
+
+	/**
+	 * Appends the removal of a match.
+	 *
+	 * @param id The match id.
+	 * @return A future completed once the record is durable.
+	 */
+	public CompletableFuture<Long> appendRemove(long id) {
+		return append(ByteBuffer.allocate(9).put(REMOVE).putLong(id).array());
+	}
+
+	/**
+	 * Checks if the log rejects appends after a failed write.
+	 *
+	 * @return true until the next snapshot succeeds.
+	 */
+	public boolean isBroken() {
+		return broken;
+	}
+
+	/**
+	 * Writes a snapshot of every hosted match and drops the segments it
+	 * supersedes. Moves keep being accepted meanwhile; a move that lands in both
+	 * the snapshot and the new segment is skipped on replay by its index.
+	 *
+	 * A log that failed a write accepts records again once the snapshot is in
+	 * place, unless another record failed while it was being taken, as the
+	 * snapshot may then hold a move its match has since rewound.
+	 *
+	 * @param registry The registry the log is attached to.
+	 * @return The number of matches in the snapshot.
+	 * @throws IOException If the snapshot cannot be written.
+	 */
+	public int snapshot(MatchRegistry registry) throws IOException {
+		Entry roll = new Entry(null, ROLL);
+		enqueue(roll);
+		long first = roll.done.join();
+
+		List<HostedMatch> matches = new ArrayList<>(registry.matches());
+		List<CompletableFuture<CompactMatch>> states = new ArrayList<>(matches.size());
+		for (HostedMatch match : matches) {
+			states.add(match.snapshot());
+		}
+		Path temp = directory.resolve("snapshot.tmp");
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(8).putInt(SNAPSHOT_MAGIC).putInt(matches.size());
+			write(out, header.flip());
+			ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+			for (int i = 0; i < matches.size(); i++) {
+				byte[] state = states.get(i).join().toByteArray();
+				if (chunk.remaining() < 8 + state.length) {
+					write(out, chunk.flip());
+					chunk = chunk.capacity() < 8 + state.length ? ByteBuffer.allocate(8 + state.length) : chunk.clear();
+				}
+				chunk.putLong(matches.get(i).getId()).put(state);
+			}
+			write(out, chunk.flip());
+			out.force(true);
+		}
+		Files.move(temp, directory.resolve(name("snapshot-", first)), StandardCopyOption.ATOMIC_MOVE);
+
+		for (Map.Entry<Long, Path> file : files(directory, "segment-").headMap(first).entrySet()) {
+			Files.deleteIfExists(file.getValue());
+		}
+		for (Map.Entry<Long, Path> file : files(directory, "snapshot-").headMap(first).entrySet()) {
+			Files.deleteIfExists(file.getValue());
+		}
+
+		Entry resume = new Entry(null, RESUME);
+		resume.failures = roll.failures;
+		enqueue(resume);
+		resume.done.join();
+		return matches.size();
+	}
+
+	/**
+	 * Flushes the queued records and closes the log.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		queue.add(new Entry(null, STOP));
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+	}
+
+	private CompletableFuture<Long> append(byte[] payload) {
+		Entry entry = new Entry(payload, RECORD);
+		enqueue(entry);
+		return entry.done;
+	}
+
+	private void enqueue(Entry entry) {
+		if (closed) {
+			throw new IllegalStateException("Move log is closed");
+		}
+		if (broken && entry.kind == RECORD) {
+			throw new IllegalStateException("Move log failed a write, appends resume after the next snapshot");
+		}
+		queue.add(entry);
+	}
+
+	/**
+	 * Writer thread: takes every queued record, writes them with one system
+	 * call and one fsync, then completes them with the segment they landed in.
+	 */
+	private void writeLoop() {
+		List<Entry> batch = new ArrayList<>();
+		CRC32 crc = new CRC32();
+		boolean stopping = false;
+		while (!stopping) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, MAX_BATCH);
+			try {
+				buffer.clear();
+				int done = 0;
+				for (int i = 0; i < batch.size(); i++) {
+					Entry entry = batch.get(i);
+					if (entry.kind == STOP) {
+						stopping = true;
+						entry.done.complete(segment);
+						continue;
+					}
+					if (entry.kind == ROLL) {
+						flush(batch, done, i);
+						done = i + 1;
+						channel.close();
+						channel = openSegment(++segment);
+						entry.failures = failures;
+						entry.done.complete(segment);
+						continue;
+					}
+					if (entry.kind == RESUME) {
+						if (entry.failures == failures) {
+							broken = false;
+						}
+						entry.done.complete(segment);
+						continue;
+					}
+					if (broken) {
+						// Queued before the failure was seen by append
+						failures++;
+						entry.done.completeExceptionally(new IOException("Move log failed a write"));
+						continue;
+					}
+					if (buffer.remaining() < 8 + entry.payload.length) {
+						buffer.flip();
+						write(channel, buffer);
+						buffer = buffer.capacity() < 8 + entry.payload.length
+								? ByteBuffer.allocate(2 * (8 + entry.payload.length))
+								: buffer.clear();
+					}
+					crc.reset();
+					crc.update(entry.payload);
+					buffer.putInt(entry.payload.length).putInt((int) crc.getValue()).put(entry.payload);
+				}
+				flush(batch, done, batch.size());
+			} catch (IOException e) {
+				broken = true;
+				failures++;
+				for (Entry entry : batch) {
+					entry.done.completeExceptionally(e);
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes the buffered records of batch[from, to) and makes them durable.
+	 */
+	private void flush(List<Entry> batch, int from, int to) throws IOException {
+		if (from == to) {
+			return;
+		}
+		buffer.flip();
+		write(channel, buffer);
+		buffer.clear();
+		channel.force(false);
+		for (int i = from; i < to; i++) {
+			batch.get(i).done.complete(segment);
+		}
+	}
+
+	private FileChannel openSegment(long seq) throws IOException {
+		return FileChannel.open(directory.resolve(name("segment-", seq)), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private static void write(FileChannel out, ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) {
+			out.write(data);
+		}
+	}
+
+	private static String name(String prefix, long seq) {
+		return String.format("%s%016d", prefix, seq);
+	}
+
+	private static TreeMap<Long, Path> files(Path directory, String prefix) throws IOException {
+		TreeMap<Long, Path> files = new TreeMap<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*")) {
+			for (Path file : stream) {
+				try {
+					files.put(Long.parseLong(file.getFileName().toString().substring(prefix.length())), file);
+				} catch (NumberFormatException e) {
+					// Not one of ours
+				}
+			}
+		}
+		return files;
+	}
+}
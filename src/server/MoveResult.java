@@ -0,0 +1,111 @@
+package server;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * Outcome of a move submitted to a hosted match, with the state of the match
+ * after the move was applied or rejected.
+ */
+public class MoveResult {
+
+	private final boolean accepted;
+	private final String error;
+	private final String fen;
+	private final Color currentPlayer;
+	private final int turn;
+	private final boolean check;
+	private final boolean checkMate;
+	private final String captured;
+
+	private MoveResult(boolean accepted, String error, ChessMatch match, ChessPiece captured) {
+		this.accepted = accepted;
+		this.error = error;
+		this.fen = match.toFen();
+		this.currentPlayer = match.getCurrentPlayer();
+		this.turn = match.getTurn();
+		this.check = match.getCheck();
+		this.checkMate = match.getCheckMate();
+		this.captured = captured == null ? null : captured.toString();
+	}
+
+	/**
+	 * Creates the result of an applied move.
+	 *
+	 * @param match    The match after the move.
+	 * @param captured The captured piece, or null.
+	 * @return The result.
+	 */
+	public static MoveResult accepted(ChessMatch match, ChessPiece captured) {
+		return new MoveResult(true, null, match, captured);
+	}
+
+	/**
+	 * Creates the result of a rejected move.
+	 *
+	 * @param match The unchanged match.
+	 * @param error The reason for the rejection.
+	 * @return The result.
+	 */
+	public static MoveResult rejected(ChessMatch match, String error) {
+		return new MoveResult(false, error, match, null);
+	}
+
+	/**
+	 * Creates a report of the current state of a match, with no move involved.
+	 *
+	 * @param match The chess match.
+	 * @return The state, reported as an accepted result without capture.
+	 */
+	public static MoveResult state(ChessMatch match) {
+		return new MoveResult(true, null, match, null);
+	}
+
+	public boolean isAccepted() {
+		return accepted;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public String getFen() {
+		return fen;
+	}
+
+	public Color getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public boolean getCheck() {
+		return check;
+	}
+
+	public boolean getCheckMate() {
+		return checkMate;
+	}
+
+	public String getCaptured() {
+		return captured;
+	}
+
+	/**
+	 * Formats the result as a JSON object.
+	 *
+	 * @return The JSON text.
+	 */
+	public String toJson() {
+		return "{\"accepted\":" + accepted + ",\"error\":" + quote(error) + ",\"fen\":" + quote(fen)
+				+ ",\"currentPlayer\":" + quote(currentPlayer.toString()) + ",\"turn\":" + turn + ",\"check\":" + check
+				+ ",\"checkMate\":" + checkMate + ",\"captured\":" + quote(captured) + "}";
+	}
+
+	private static String quote(String s) {
+		return s == null ? "null" : "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}